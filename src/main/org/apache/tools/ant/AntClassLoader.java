@@ -29,10 +29,14 @@ import java.net.URL;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
@@ -69,7 +73,8 @@ import org.apache.tools.zip.ZipLong;
  * </p>
  *
  */
-public class AntClassLoader extends ClassLoader implements SubBuildListener, Closeable {
+public class AntClassLoader extends ClassLoader
+    implements SubBuildListener, LevelAwareBuildListener, Closeable {
 
     private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
 
@@ -89,9 +94,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         private final String resourceName;
 
         /**
-         * The index of the next classpath element to search.
+         * The classpath elements that may contain the resource.
          */
-        private int pathElementsIndex;
+        private final Iterator<File> pathElements;
 
         /**
          * The URL of the next resource to return in the enumeration. If this
@@ -108,7 +113,7 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
          */
         ResourceEnumeration(final String name) {
             this.resourceName = name;
-            this.pathElementsIndex = 0;
+            this.pathElements = getPathComponentsFor(name).iterator();
             findNextResource();
         }
 
@@ -145,11 +150,10 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
          */
         private void findNextResource() {
             URL url = null;
-            while ((pathElementsIndex < pathComponents.size()) && (url == null)) {
+            while (pathElements.hasNext() && (url == null)) {
                 try {
-                    final File pathComponent = pathComponents.elementAt(pathElementsIndex);
+                    final File pathComponent = pathElements.next();
                     url = getResourceURL(pathComponent, this.resourceName);
-                    pathElementsIndex++;
                 } catch (final BuildException e) {
                     // ignore path elements which are not valid relative to the
                     // project
@@ -175,6 +179,12 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
      */
     private final Vector<File> pathComponents  = new VectorSet<File>();
 
+    /**
+     * Index of the path components by the directories they contain,
+     * built lazily and discarded whenever the path changes.
+     */
+    private volatile PackageIndex packageIndex;
+
     /**
      * The project to which this class loader belongs.
      */
@@ -214,7 +224,8 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
     private ClassLoader parent = null;
 
     /**
-     * A hashtable of zip files opened by the classloader (File to JarFile).
+     * A hashtable of zip files used by the classloader (File to JarFile).
+     * The JarFiles are shared with other loaders via {@link JarFilePool}.
      */
     private Hashtable<File, JarFile> jarFiles = new Hashtable<File, JarFile>();
 
@@ -233,6 +244,11 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
      */
     private boolean isContextLoaderSaved = false;
 
+    {
+        // counted here as there is no constructor all others delegate to
+        Metrics.CLASS_LOADERS_CREATED.increment();
+    }
+
     /**
      * Create an Ant ClassLoader for a given project, with
      * a parent classloader and an initial classpath.
@@ -354,6 +370,7 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
      */
     public void setClassPath(final Path classpath) {
         pathComponents.removeAllElements();
+        packageIndex = null;
         if (classpath != null) {
             final Path actualClasspath = classpath.concatSystemClasspath("ignore");
             final String[] pathElements = actualClasspath.list();
@@ -466,6 +483,7 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
             return;
         }
         pathComponents.addElement(file);
+        packageIndex = null;
     }
 
     /**
@@ -481,6 +499,7 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
     protected void addPathFile(final File pathComponent) throws IOException {
         if (!pathComponents.contains(pathComponent)) {
             pathComponents.addElement(pathComponent);
+            packageIndex = null;
         }
         if (pathComponent.isDirectory()) {
             return;
@@ -740,9 +759,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         // find the class we want.
         InputStream stream = null;
 
-        final Enumeration<File> e = pathComponents.elements();
-        while (e.hasMoreElements() && stream == null) {
-            final File pathComponent = e.nextElement();
+        final Iterator<File> e = getPathComponentsFor(name).iterator();
+        while (e.hasNext() && stream == null) {
+            final File pathComponent = e.next();
             stream = getResourceStream(pathComponent, name);
         }
         return stream;
@@ -785,14 +804,10 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
             } else {
                 if (jarFile == null) {
                     if (file.exists()) {
-                        jarFile = new JarFile(file);
-                        jarFiles.put(file, jarFile);
+                        jarFile = getJarFile(file);
                     } else {
                         return null;
                     }
-                    //to eliminate a race condition, retrieve the entry
-                    //that is in the hash table under that filename
-                    jarFile = jarFiles.get(file);
                 }
                 final JarEntry entry = jarFile.getJarEntry(resourceName);
                 if (entry != null) {
@@ -883,9 +898,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         } else {
             // try and load from this loader if the parent either didn't find
             // it or wasn't consulted.
-            final Enumeration<File> e = pathComponents.elements();
-            while (e.hasMoreElements() && url == null) {
-                final File pathComponent = e.nextElement();
+            final Iterator<File> e = getPathComponentsFor(name).iterator();
+            while (e.hasNext() && url == null) {
+                final File pathComponent = e.next();
                 url = getResourceURL(pathComponent, name);
                 if (url != null) {
                     log("Resource " + name + " loaded from ant loader", Project.MSG_DEBUG);
@@ -1017,13 +1032,10 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
                             System.err.println(msg);
                             return null;
                         }
-                        jarFile = new JarFile(file);
-                        jarFiles.put(file, jarFile);
+                        jarFile = getJarFile(file);
                     } else {
                         return null;
                     }
-                    // potential race-condition
-                    jarFile = jarFiles.get(file);
                 }
                 final JarEntry entry = jarFile.getJarEntry(resourceName);
                 if (entry != null) {
@@ -1043,6 +1055,114 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         return null;
     }
 
+    /**
+     * The path components that may contain the given resource in the
+     * order they appear on the classpath.
+     *
+     * <p>Jars that don't contain the directory of the resource are
+     * skipped, directories and anything that cannot be read as a jar
+     * are always included.</p>
+     *
+     * @param resourceName the name of the resource
+     * @return the components to search
+     */
+    private List<File> getPathComponentsFor(final String resourceName) {
+        PackageIndex index = packageIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = packageIndex;
+                if (index == null) {
+                    index = new PackageIndex();
+                    packageIndex = index;
+                }
+            }
+        }
+        return index.getComponents(resourceName);
+    }
+
+    /**
+     * Maps the directories contained in the jars of the classpath
+     * to the positions of those jars, similar to a jar index.
+     */
+    private class PackageIndex {
+        /** The path components at the time the index was built. */
+        private final File[] components;
+        /** Positions of components that always have to be searched. */
+        private final BitSet unindexed = new BitSet();
+        /** Positions of the jars by contained directory. */
+        private final Map<String, BitSet> jarsByDirectory = new HashMap<String, BitSet>();
+
+        PackageIndex() {
+            components = pathComponents.toArray(new File[0]);
+            for (int i = 0; i < components.length; i++) {
+                final File component = components[i];
+                JarFile jarFile = null;
+                try {
+                    if (component.isFile() && isZip(component)) {
+                        jarFile = jarFiles.get(component);
+                        if (jarFile == null) {
+                            jarFile = getJarFile(component);
+                        }
+                    }
+                } catch (final IOException ex) {
+                    log("Not indexing " + component + ": " + ex.getMessage(),
+                        Project.MSG_DEBUG);
+                }
+                if (jarFile == null) {
+                    unindexed.set(i);
+                    continue;
+                }
+                for (final String directory : JarFilePool.getDirectories(jarFile)) {
+                    BitSet jars = jarsByDirectory.get(directory);
+                    if (jars == null) {
+                        jars = new BitSet();
+                        jarsByDirectory.put(directory, jars);
+                    }
+                    jars.set(i);
+                }
+            }
+        }
+
+        List<File> getComponents(final String resourceName) {
+            final int slash = resourceName.lastIndexOf('/');
+            final String directory = slash == -1 ? "" : resourceName.substring(0, slash);
+            final BitSet jars = jarsByDirectory.get(directory);
+            final BitSet candidates;
+            if (jars == null) {
+                candidates = unindexed;
+            } else if (unindexed.isEmpty()) {
+                candidates = jars;
+            } else {
+                candidates = (BitSet) unindexed.clone();
+                candidates.or(jars);
+            }
+            final List<File> result = new ArrayList<File>(candidates.cardinality());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                result.add(components[i]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Obtains the JarFile for a path component from the shared pool and
+     * remembers it so it can be given back in {@link #cleanup cleanup}.
+     *
+     * @param file the jar file
+     * @return the JarFile used by this loader
+     * @throws IOException if the jar cannot be opened
+     */
+    private JarFile getJarFile(final File file) throws IOException {
+        final JarFile jarFile = JarFilePool.acquire(file, this);
+        final JarFile existing = jarFiles.putIfAbsent(file, jarFile);
+        if (existing != null) {
+            // another thread has been faster
+            JarFilePool.release(jarFile, this);
+            return existing;
+        }
+        return jarFile;
+    }
+
     /**
      * Loads a class with this class loader.
      *
@@ -1355,9 +1475,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         // we need to search the components of the path to see if
         // we can find the class we want.
         final String classFilename = getClassFilename(name);
-        final Enumeration<File> e = pathComponents.elements();
-        while (e.hasMoreElements()) {
-            final File pathComponent = e.nextElement();
+        final Iterator<File> e = getPathComponentsFor(classFilename).iterator();
+        while (e.hasNext()) {
+            final File pathComponent = e.next();
             InputStream stream = null;
             try {
                 stream = getResourceStream(pathComponent, classFilename);
@@ -1400,11 +1520,12 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
 
     /**
      * Cleans up any resources held by this classloader. Any open archive
-     * files are closed.
+     * files are given back to the shared pool and closed unless other
+     * loaders still use them.
      */
     public synchronized void cleanup() {
         for (final Enumeration<JarFile> e = jarFiles.elements(); e.hasMoreElements();) {
-            FileUtils.close(e.nextElement());
+            JarFilePool.release(e.nextElement(), this);
         }
         jarFiles = new Hashtable<File, JarFile>();
         if (project != null) {
@@ -1514,6 +1635,16 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener, Clo
         // Not significant for the class loader.
     }
 
+    /**
+     * The class loader isn't interested in any messages.
+     *
+     * @return a level lower than {@link Project#MSG_ERR}
+     * @since Ant 1.10.0
+     */
+    public int getMessageOutputLevel() {
+        return Project.MSG_ERR - 1;
+    }
+
     /**
      * add any libraries that come with different java versions
      * here
@@ -0,0 +1,272 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivers "message logged" events to the build listeners on a
+ * dedicated thread.
+ *
+ * <p>Threads logging a message only queue the event and return
+ * immediately.  The dispatcher thread takes all queued events at
+ * once, passes them to the listeners and flushes listeners
+ * implementing {@link Flushable} after each batch.</p>
+ *
+ * <p>All other build events act as a barrier: the thread firing
+ * them waits until all messages logged so far have been delivered,
+ * so listeners see the events in the same order as they would
+ * without the dispatcher.</p>
+ *
+ * <p>A single dispatcher is shared by a project and all its
+ * sub-projects.</p>
+ *
+ * <p>A listener that throws an exception while handling a message is
+ * removed and the failure is logged to the remaining listeners on
+ * the dispatcher thread, the thread that logged the message has long
+ * moved on by then.</p>
+ *
+ * @since Ant 1.10.0
+ */
+final class AsyncMessageDispatcher implements Runnable {
+
+    /** Maximum number of queued events before loggers have to wait. */
+    private static final int CAPACITY = 8192;
+
+    private final Project owner;
+    private final Object lock = new Object();
+    private List<QueuedMessage> queue = new ArrayList<QueuedMessage>();
+    private boolean delivering = false;
+    private boolean closed = false;
+    private Thread thread;
+    /** listeners that have failed, only used by the dispatcher thread */
+    private final Set<BuildListener> failedListeners =
+        Collections.newSetFromMap(new IdentityHashMap<BuildListener, Boolean>());
+
+    /**
+     * @param owner the project that created the dispatcher and is
+     * responsible for closing it
+     */
+    AsyncMessageDispatcher(final Project owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * The project that created this dispatcher.
+     * @return the owning project
+     */
+    Project getOwner() {
+        return owner;
+    }
+
+    /**
+     * Queues an event for delivery.
+     *
+     * @param project the project that fired the event
+     * @param listeners the listeners to notify
+     * @param event the event
+     * @return false if the dispatcher has been closed and the caller
+     * has to deliver the event itself
+     */
+    boolean enqueue(final Project project, final BuildListener[] listeners,
+                    final BuildEvent event) {
+        synchronized (lock) {
+            if (closed || Thread.currentThread() == thread) {
+                return false;
+            }
+            while (queue.size() >= CAPACITY && !closed) {
+                waitForLock();
+            }
+            if (closed) {
+                return false;
+            }
+            queue.add(new QueuedMessage(project, listeners, event));
+            if (thread == null) {
+                thread = new Thread(this, "Ant log dispatcher");
+                thread.setDaemon(true);
+                thread.start();
+            } else if (queue.size() == 1) {
+                lock.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until all queued events have been delivered.
+     */
+    void awaitDelivery() {
+        synchronized (lock) {
+            if (Thread.currentThread() != thread) {
+                while (!queue.isEmpty() || delivering) {
+                    waitForLock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers all queued events and stops the dispatcher thread,
+     * events logged later on are delivered synchronously.
+     */
+    void close() {
+        final Thread t;
+        try {
+            awaitDelivery();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                t = thread;
+                lock.notifyAll();
+            }
+        }
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Flushes all listeners that implement Flushable.
+     *
+     * @param listeners the listeners
+     */
+    static void flush(final BuildListener[] listeners) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof Flushable) {
+                try {
+                    ((Flushable) listeners[i]).flush();
+                } catch (final IOException e) {
+                    // ignore, the listener will see the error again
+                    // when writing the next message
+                }
+            }
+        }
+    }
+
+    /** Delivers queued events until the dispatcher gets closed. */
+    public void run() {
+        while (true) {
+            final List<QueuedMessage> batch;
+            synchronized (lock) {
+                while (queue.isEmpty() && !closed) {
+                    waitForLock();
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch = queue;
+                queue = new ArrayList<QueuedMessage>();
+                delivering = true;
+                // wake up loggers waiting for free capacity
+                lock.notifyAll();
+            }
+            BuildListener[] lastListeners = null;
+            for (final QueuedMessage m : batch) {
+                if (lastListeners != null && lastListeners != m.listeners) {
+                    flush(lastListeners);
+                }
+                lastListeners = m.listeners;
+                deliver(m.project, m.listeners, m.event);
+            }
+            flush(lastListeners);
+            synchronized (lock) {
+                delivering = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Passes an event to all listeners that haven't failed before.
+     *
+     * @param project the project that fired the event
+     * @param listeners the listeners to notify
+     * @param event the event
+     */
+    private void deliver(final Project project, final BuildListener[] listeners,
+                         final BuildEvent event) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (failedListeners.contains(listeners[i])) {
+                continue;
+            }
+            try {
+                project.dispatchMessageLogged(listeners[i], event);
+            } catch (final Throwable t) {
+                removeFailedListener(project, listeners, listeners[i], t);
+            }
+        }
+    }
+
+    /**
+     * Removes a listener that has thrown an exception while handling
+     * a message and tells the other listeners about it.
+     *
+     * @param project the project that fired the event
+     * @param listeners the listeners the event was passed to
+     * @param failed the listener that threw the exception
+     * @param t the exception
+     */
+    private void removeFailedListener(final Project project,
+                                      final BuildListener[] listeners,
+                                      final BuildListener failed,
+                                      final Throwable t) {
+        failedListeners.add(failed);
+        project.removeBuildListener(failed);
+        owner.removeBuildListener(failed);
+        final BuildEvent event = new BuildEvent(project);
+        event.setMessage("Removed build listener " + failed.getClass().getName()
+                         + " as it failed to process a message: " + t,
+                         Project.MSG_ERR);
+        event.setException(t);
+        deliver(project, listeners, event);
+    }
+
+    private void waitForLock() {
+        try {
+            lock.wait();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException("interrupted while waiting for the"
+                                     + " log dispatcher", e);
+        }
+    }
+
+    /** A queued event together with its target. */
+    private static final class QueuedMessage {
+        private final Project project;
+        private final BuildListener[] listeners;
+        private final BuildEvent event;
+
+        private QueuedMessage(final Project project, final BuildListener[] listeners,
+                              final BuildEvent event) {
+            this.project = project;
+            this.listeners = listeners;
+            this.event = event;
+        }
+    }
+}
@@ -18,7 +18,9 @@
 
 package org.apache.tools.ant;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.StringReader;
@@ -35,7 +37,8 @@ import org.apache.tools.ant.util.StringUtils;
  * any messages that get logged.
  *
  */
-public class DefaultLogger implements BuildLogger {
+public class DefaultLogger
+    implements BuildLogger, LevelAwareBuildListener, Flushable {
     /**
      * Size of left-hand column for right-justified task name.
      * @see #messageLogged(BuildEvent)
@@ -55,6 +58,9 @@ public class DefaultLogger implements BuildLogger {
     /** Time of the start of the build */
     private long startTime = System.currentTimeMillis();
 
+    /** Whether the streams are flushed after each message */
+    private boolean autoFlush = true;
+
     // CheckStyle:ConstantNameCheck OFF - bc
     /** Line separator */
     protected static final String lSep = StringUtils.LINE_SEP;
@@ -91,6 +97,37 @@ public class DefaultLogger implements BuildLogger {
         this.msgOutputLevel = level;
     }
 
+    /**
+     * The highest message priority this logger wants to receive.
+     *
+     * <p>This is the message output level if {@link
+     * #isLevelFilteringEnabled level filtering} is enabled and
+     * <code>Integer.MAX_VALUE</code> otherwise.</p>
+     *
+     * @return the logging level of the logger
+     * @since Ant 1.10.0
+     */
+    public int getMessageOutputLevel() {
+        return isLevelFilteringEnabled() ? msgOutputLevel : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Whether the project may skip messages above the message output
+     * level instead of passing them to {@link #messageLogged
+     * messageLogged}.
+     *
+     * <p>Only enabled for DefaultLogger itself as subclasses may
+     * override messageLogged and look at messages of all levels.
+     * Subclasses that don't should override this method and return
+     * true.</p>
+     *
+     * @return whether messages above the output level may be skipped
+     * @since Ant 1.10.0
+     */
+    protected boolean isLevelFilteringEnabled() {
+        return getClass() == DefaultLogger.class;
+    }
+
     /**
      * Sets the output stream to which this logger is to send its output.
      *
@@ -98,7 +135,7 @@ public class DefaultLogger implements BuildLogger {
      *               Must not be <code>null</code>.
      */
     public void setOutputPrintStream(PrintStream output) {
-        this.out = new PrintStream(output, true);
+        this.out = wrap(output);
     }
 
     /**
@@ -108,7 +145,44 @@ public class DefaultLogger implements BuildLogger {
      *            Must not be <code>null</code>.
      */
     public void setErrorPrintStream(PrintStream err) {
-        this.err = new PrintStream(err, true);
+        this.err = wrap(err);
+    }
+
+    /**
+     * Sets whether the output and error streams are flushed after
+     * each message, defaults to true.
+     *
+     * <p>Set this to false if {@link #flush} is called regularly,
+     * like it is the case for projects that {@link
+     * Project#setAsyncLogging log asynchronously}.  Applies to
+     * streams set after this method has been called.</p>
+     *
+     * @param autoFlush whether to flush after each message
+     * @since Ant 1.10.0
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Flushes the output and error streams.
+     *
+     * @since Ant 1.10.0
+     */
+    public void flush() {
+        if (out != null) {
+            out.flush();
+        }
+        if (err != null) {
+            err.flush();
+        }
+    }
+
+    private PrintStream wrap(PrintStream stream) {
+        if (autoFlush) {
+            return new PrintStream(stream, true);
+        }
+        return new PrintStream(new BufferedOutputStream(stream), false);
     }
 
     /**
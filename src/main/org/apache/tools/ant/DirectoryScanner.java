@@ -39,6 +39,7 @@ import org.apache.tools.ant.types.selectors.SelectorScanner;
 import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.apache.tools.ant.types.selectors.TokenizedPath;
 import org.apache.tools.ant.types.selectors.TokenizedPattern;
+import org.apache.tools.ant.types.selectors.TokenizedPatternTree;
 import org.apache.tools.ant.util.CollectionUtils;
 import org.apache.tools.ant.util.FileUtils;
 import org.apache.tools.ant.util.SymbolicLinkUtils;
@@ -364,6 +365,26 @@ public class DirectoryScanner
      */
     private TokenizedPattern[] excludePatterns;
 
+    /**
+     * All include patterns that contain wildcards merged into a
+     * single tree.
+     *
+     * <p>Gets lazily initialized on the first invocation of
+     * isIncluded or isExcluded and cleared at the end of the scan
+     * method (cleared in clearCaches, actually).</p>
+     */
+    private TokenizedPatternTree includePatternTree;
+
+    /**
+     * All exclude patterns that contain wildcards merged into a
+     * single tree.
+     *
+     * <p>Gets lazily initialized on the first invocation of
+     * isIncluded or isExcluded and cleared at the end of the scan
+     * method (cleared in clearCaches, actually).</p>
+     */
+    private TokenizedPatternTree excludePatternTree;
+
     /**
      * Have the non-pattern sets and pattern arrays for in- and
      * excludes been initialized?
@@ -1024,6 +1045,7 @@ public class DirectoryScanner
                             scandir(myfile, currentPath, true);
                         }
                     } else if (myfile.isFile()) {
+                        Metrics.FILES_SCANNED.increment();
                         final String originalpattern = entry.getValue();
                         final boolean included = isCaseSensitive()
                             ? originalpattern.equals(currentelement)
@@ -1245,6 +1267,7 @@ public class DirectoryScanner
             directoryNamesFollowed.addFirst(dir.getName());
         }
 
+        Metrics.FILES_SCANNED.add(newfiles.length);
         for (int i = 0; i < newfiles.length; i++) {
             final String name = vpath + newfiles[i];
             final TokenizedPath newPath = new TokenizedPath(path, newfiles[i]);
@@ -1390,12 +1413,7 @@ public class DirectoryScanner
             : includeNonPatterns.containsKey(path.toString().toUpperCase())) {
             return true;
         }
-        for (int i = 0; i < includePatterns.length; i++) {
-            if (includePatterns[i].matchPath(path, isCaseSensitive())) {
-                return true;
-            }
-        }
-        return false;
+        return includePatternTree.matchPath(path);
     }
 
     /**
@@ -1533,12 +1551,7 @@ public class DirectoryScanner
             : excludeNonPatterns.containsKey(name.toString().toUpperCase())) {
             return true;
         }
-        for (int i = 0; i < excludePatterns.length; i++) {
-            if (excludePatterns[i].matchPath(name, isCaseSensitive())) {
-                return true;
-            }
-        }
-        return false;
+        return excludePatternTree.matchPath(name);
     }
 
     /**
@@ -1812,6 +1825,8 @@ public class DirectoryScanner
         excludeNonPatterns.clear();
         includePatterns = null;
         excludePatterns = null;
+        includePatternTree = null;
+        excludePatternTree = null;
         areNonPatternSetsReady = false;
     }
 
@@ -1825,6 +1840,8 @@ public class DirectoryScanner
         if (!areNonPatternSetsReady) {
             includePatterns = fillNonPatternSet(includeNonPatterns, includes);
             excludePatterns = fillNonPatternSet(excludeNonPatterns, excludes);
+            includePatternTree = new TokenizedPatternTree(includePatterns, isCaseSensitive());
+            excludePatternTree = new TokenizedPatternTree(excludePatterns, isCaseSensitive());
             areNonPatternSetsReady = true;
         }
     }
@@ -17,17 +17,22 @@
  */
 package org.apache.tools.ant;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.tools.ant.taskdefs.PreSetDef;
 import org.apache.tools.ant.types.EnumeratedAttribute;
@@ -41,8 +46,11 @@ import org.apache.tools.ant.util.StringUtils;
  * holds to set attributes, create nested elements or hold PCDATA
  * elements.
  *
- * It contains hashtables containing classes that use introspection
+ * It contains maps containing classes that use introspection
  * to handle all the invocation of the project-component specific methods.
+ * The maps are filled when the helper is created and never modified
+ * afterwards, so they can be read without synchronization.  The
+ * methods are invoked via method handles created once per method.
  *
  * This class is somewhat complex, as it implements the O/X mapping between
  * Ant XML and Java class instances. This is not the best place for someone new
@@ -63,7 +71,8 @@ public final class IntrospectionHelper {
     /**
      * Helper instances we've already created (Class.getName() to IntrospectionHelper).
      */
-    private static final Map<String, IntrospectionHelper> HELPERS = new Hashtable<String, IntrospectionHelper>();
+    private static final Map<String, IntrospectionHelper> HELPERS =
+        new ConcurrentHashMap<String, IntrospectionHelper>();
 
     /**
      * Map from primitive types to wrapper classes for use in
@@ -91,25 +100,25 @@ public final class IntrospectionHelper {
      * Map from attribute names to attribute types
      * (String to Class).
      */
-    private final Hashtable<String, Class<?>> attributeTypes = new Hashtable<String, Class<?>>();
+    private final Map<String, Class<?>> attributeTypes = new HashMap<String, Class<?>>();
 
     /**
      * Map from attribute names to attribute setter methods
      * (String to AttributeSetter).
      */
-    private final Hashtable<String, AttributeSetter> attributeSetters = new Hashtable<String, AttributeSetter>();
+    private final Map<String, AttributeSetter> attributeSetters = new HashMap<String, AttributeSetter>();
 
     /**
      * Map from attribute names to nested types
      * (String to Class).
      */
-    private final Hashtable<String, Class<?>> nestedTypes = new Hashtable<String, Class<?>>();
+    private final Map<String, Class<?>> nestedTypes = new HashMap<String, Class<?>>();
 
     /**
      * Map from attribute names to methods to create nested types
      * (String to NestedCreator).
      */
-    private final Hashtable<String, NestedCreator> nestedCreators = new Hashtable<String, NestedCreator>();
+    private final Map<String, NestedCreator> nestedCreators = new HashMap<String, NestedCreator>();
 
     /**
      * Vector of methods matching add[Configured](Class) pattern.
@@ -121,6 +130,11 @@ public final class IntrospectionHelper {
      */
     private final Method addText;
 
+    /**
+     * The invoker for addText.
+     */
+    private final Invoker addTextInvoker;
+
     /**
      * The class introspected by this instance.
      */
@@ -297,6 +311,7 @@ public final class IntrospectionHelper {
             }
         }
         addText = addTextMethod;
+        addTextInvoker = addTextMethod == null ? null : new Invoker(addTextMethod);
     }
 
     /**
@@ -326,7 +341,7 @@ public final class IntrospectionHelper {
      *
      * @return a helper for the specified class
      */
-    public static synchronized IntrospectionHelper getHelper(final Class<?> c) {
+    public static IntrospectionHelper getHelper(final Class<?> c) {
         return getHelper(null, c);
     }
 
@@ -343,19 +358,25 @@ public final class IntrospectionHelper {
      *
      * @return a helper for the specified class
      */
-    public static synchronized IntrospectionHelper getHelper(final Project p, final Class<?> c) {
+    public static IntrospectionHelper getHelper(final Project p, final Class<?> c) {
         IntrospectionHelper ih = HELPERS.get(c.getName());
-        // If a helper cannot be found, or if the helper is for another
-        // classloader, create a new IH
-        if (ih == null || ih.bean != c) {
-            ih = new IntrospectionHelper(c);
-            if (p != null) {
-                // #30162: do *not* cache this if there is no project, as we
-                // cannot guarantee that the cache will be cleared.
-                HELPERS.put(c.getName(), ih);
+        if (ih != null && ih.bean == c) {
+            return ih;
+        }
+        synchronized (HELPERS) {
+            ih = HELPERS.get(c.getName());
+            // If a helper cannot be found, or if the helper is for another
+            // classloader, create a new IH
+            if (ih == null || ih.bean != c) {
+                ih = new IntrospectionHelper(c);
+                if (p != null) {
+                    // #30162: do *not* cache this if there is no project, as we
+                    // cannot guarantee that the cache will be cleared.
+                    HELPERS.put(c.getName(), ih);
+                }
             }
+            return ih;
         }
-        return ih;
     }
 
     /**
@@ -471,7 +492,7 @@ public final class IntrospectionHelper {
                     + " doesn't support nested text data (\"" + condenseText(text) + "\").");
         }
         try {
-            addText.invoke(element, new Object[] {text});
+            addTextInvoker.invoke(element, new Object[] {text});
         } catch (final IllegalAccessException ie) {
             // impossible as getMethods should only return public methods
             throw new BuildException(ie);
@@ -942,7 +963,7 @@ public final class IntrospectionHelper {
      * @see #getAttributeMap
      */
     public Enumeration<String> getAttributes() {
-        return attributeSetters.keys();
+        return Collections.enumeration(attributeSetters.keySet());
     }
 
     /**
@@ -966,7 +987,7 @@ public final class IntrospectionHelper {
      * @see #getNestedElementMap
      */
     public Enumeration<String> getNestedElements() {
-        return nestedTypes.keys();
+        return Collections.enumeration(nestedTypes.keySet());
     }
 
     /**
@@ -1063,7 +1084,7 @@ public final class IntrospectionHelper {
                 @Override
                 public void set(final Project p, final Object parent, final String value)
                         throws InvocationTargetException, IllegalAccessException {
-                    m.invoke(parent, (Object[]) new String[] {value});
+                    invoke(parent, (Object[]) new String[] {value});
                 }
             };
         }
@@ -1077,7 +1098,7 @@ public final class IntrospectionHelper {
                         throw new BuildException("The value \"\" is not a "
                                 + "legal value for attribute \"" + attrName + "\"");
                     }
-                    m.invoke(parent, (Object[]) new Character[] {new Character(value.charAt(0))});
+                    invoke(parent, (Object[]) new Character[] {new Character(value.charAt(0))});
                 }
             };
         }
@@ -1087,7 +1108,7 @@ public final class IntrospectionHelper {
                 @Override
                 public void set(final Project p, final Object parent, final String value)
                         throws InvocationTargetException, IllegalAccessException {
-                    m.invoke(parent, (Object[]) new Boolean[] {
+                    invoke(parent, (Object[]) new Boolean[] {
                             Project.toBoolean(value) ? Boolean.TRUE : Boolean.FALSE });
                 }
             };
@@ -1099,7 +1120,7 @@ public final class IntrospectionHelper {
                 public void set(final Project p, final Object parent, final String value)
                         throws InvocationTargetException, IllegalAccessException, BuildException {
                     try {
-                        m.invoke(parent, new Object[] {Class.forName(value)});
+                        invoke(parent, new Object[] {Class.forName(value)});
                     } catch (final ClassNotFoundException ce) {
                         throw new BuildException(ce);
                     }
@@ -1112,7 +1133,7 @@ public final class IntrospectionHelper {
                 @Override
                 public void set(final Project p, final Object parent, final String value)
                         throws InvocationTargetException, IllegalAccessException {
-                    m.invoke(parent, new Object[] {p.resolveFile(value)});
+                    invoke(parent, new Object[] {p.resolveFile(value)});
                 }
             };
         }
@@ -1122,7 +1143,7 @@ public final class IntrospectionHelper {
                 @Override
                 void set(final Project p, final Object parent, final String value) throws InvocationTargetException,
                         IllegalAccessException, BuildException {
-                    m.invoke(parent, new Object[] {new FileResource(p, p.resolveFile(value))});
+                    invoke(parent, new Object[] {new FileResource(p, p.resolveFile(value))});
                 };
             };
         }
@@ -1135,7 +1156,7 @@ public final class IntrospectionHelper {
                     try {
                         final EnumeratedAttribute ea = (EnumeratedAttribute) reflectedArg.newInstance();
                         ea.setValue(value);
-                        m.invoke(parent, new Object[] {ea});
+                        invoke(parent, new Object[] {ea});
                     } catch (final InstantiationException ie) {
                         throw new BuildException(ie);
                     }
@@ -1154,7 +1175,7 @@ public final class IntrospectionHelper {
                 public void set(final Project p, final Object parent, final String value)
                         throws InvocationTargetException, IllegalAccessException, BuildException {
                     try {
-                        m.invoke(parent, new Object[] {
+                        invoke(parent, new Object[] {
                                 new Long(StringUtils.parseHumanSizes(value)) });
                     } catch (final NumberFormatException e) {
                         throw new BuildException("Can't assign non-numeric"
@@ -1205,7 +1226,7 @@ public final class IntrospectionHelper {
                     if (p != null) {
                         p.setProjectReference(attribute);
                     }
-                    m.invoke(parent, new Object[] {attribute});
+                    invoke(parent, new Object[] {attribute});
                 } catch (final InvocationTargetException e) {
                     final Throwable cause = e.getCause();
                     if (cause instanceof IllegalArgumentException) {
@@ -1244,7 +1265,7 @@ public final class IntrospectionHelper {
                         throw new BuildException("'" + value + "' is not a permitted value for "
                                 + reflectedArg.getName());
                     }
-                    m.invoke(parent, setValue);
+                    invoke(parent, setValue);
                 }
             };
         }
@@ -1393,13 +1414,19 @@ public final class IntrospectionHelper {
      */
     private abstract static class NestedCreator {
         private final Method method; // the method called to add/create the nested element
+        private final Invoker invoker;
 
         protected NestedCreator(final Method m) {
             method = m;
+            invoker = m == null ? null : new Invoker(m);
         }
         Method getMethod() {
             return method;
         }
+        Object invoke(final Object parent, final Object[] args)
+                throws InvocationTargetException, IllegalAccessException {
+            return invoker.invoke(parent, args);
+        }
         boolean isPolyMorphic() {
             return false;
         }
@@ -1423,7 +1450,7 @@ public final class IntrospectionHelper {
         @Override
         Object create(final Project project, final Object parent, final Object ignore)
                 throws InvocationTargetException, IllegalAccessException {
-            return getMethod().invoke(parent, new Object[] {});
+            return invoke(parent, new Object[] {});
         }
     }
 
@@ -1474,7 +1501,7 @@ public final class IntrospectionHelper {
 
         private void istore(final Object parent, final Object child)
                 throws InvocationTargetException, IllegalAccessException, InstantiationException {
-            getMethod().invoke(parent, new Object[] {child});
+            invoke(parent, new Object[] {child});
         }
     }
 
@@ -1484,11 +1511,17 @@ public final class IntrospectionHelper {
      */
     private abstract static class AttributeSetter {
         private final Method method; // the method called to set the attribute
+        private final Invoker invoker;
         private final Class<?> type;
         protected AttributeSetter(final Method m, final Class<?> type) {
             method = m;
+            invoker = new Invoker(m);
             this.type = type;
         }
+        void invoke(final Object parent, final Object... args)
+                throws InvocationTargetException, IllegalAccessException {
+            invoker.invoke(parent, args);
+        }
         void setObject(final Project p, final Object parent, final Object value)
                 throws InvocationTargetException, IllegalAccessException, BuildException {
             if (type != null) {
@@ -1503,7 +1536,7 @@ public final class IntrospectionHelper {
                     useType = PRIMITIVE_TYPE_MAP.get(type);
                 }
                 if (value == null || useType.isInstance(value)) {
-                    method.invoke(parent, new Object[] {value});
+                    invoke(parent, new Object[] {value});
                     return;
                 }
             }
@@ -1513,6 +1546,73 @@ public final class IntrospectionHelper {
                 throws InvocationTargetException, IllegalAccessException, BuildException;
     }
 
+    /**
+     * Invokes a public method with at most one argument via a method
+     * handle created once, which is considerably cheaper than {@link
+     * Method#invoke Method.invoke} for methods called very often.
+     *
+     * <p>Falls back to reflection if no handle could be created or
+     * the arguments don't match the parameter types exactly, so
+     * conversions and error reporting - IllegalArgumentException for
+     * mismatched arguments and InvocationTargetException for
+     * exceptions thrown by the method - stay the same.</p>
+     */
+    private static final class Invoker {
+        private static final MethodType NO_ARG =
+            MethodType.methodType(Object.class, Object.class);
+        private static final MethodType ONE_ARG =
+            MethodType.methodType(Object.class, Object.class, Object.class);
+
+        private final Method method;
+        private final Class<?> declaringClass;
+        private final Class<?> argType;
+        private final MethodHandle handle;
+
+        Invoker(final Method m) {
+            method = m;
+            declaringClass = m.getDeclaringClass();
+            final Class<?>[] params = m.getParameterTypes();
+            argType = params.length == 1 ? wrap(params[0]) : null;
+            MethodHandle h = null;
+            // static methods don't take the target as first argument
+            if (params.length <= 1 && !Modifier.isStatic(m.getModifiers())) {
+                try {
+                    h = MethodHandles.publicLookup().unreflect(m)
+                        .asType(params.length == 0 ? NO_ARG : ONE_ARG);
+                } catch (final IllegalAccessException ex) {
+                    // not accessible via a public lookup, use reflection
+                } catch (final WrongMethodTypeException ex) {
+                    // can't be adapted to the generic type, use reflection
+                }
+            }
+            handle = h;
+        }
+
+        Object invoke(final Object target, final Object[] args)
+                throws InvocationTargetException, IllegalAccessException {
+            final int expected = argType == null ? 0 : 1;
+            if (handle == null || !declaringClass.isInstance(target)
+                || args.length != expected
+                // null, which may be illegal for primitives, or an
+                // argument that would need a conversion
+                || (expected == 1 && !argType.isInstance(args[0]))) {
+                return method.invoke(target, args);
+            }
+            try {
+                if (expected == 0) {
+                    return handle.invokeExact(target);
+                }
+                return handle.invokeExact(target, args[0]);
+            } catch (final Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        private static Class<?> wrap(final Class<?> type) {
+            return type.isPrimitive() ? PRIMITIVE_TYPE_MAP.get(type) : type;
+        }
+    }
+
     /**
      * Clears the static cache of on build finished.
      */
@@ -1567,7 +1667,7 @@ public final class IntrospectionHelper {
             Object create(final Project project, final Object parent, final Object ignore)
                     throws InvocationTargetException, IllegalAccessException {
                 if (!getMethod().getName().endsWith("Configured")) {
-                    getMethod().invoke(parent, new Object[] {realObject});
+                    invoke(parent, new Object[] {realObject});
                 }
                 return nestedObject;
             }
@@ -1581,7 +1681,7 @@ public final class IntrospectionHelper {
             void store(final Object parent, final Object child) throws InvocationTargetException,
                     IllegalAccessException, InstantiationException {
                 if (getMethod().getName().endsWith("Configured")) {
-                    getMethod().invoke(parent, new Object[] {realObject});
+                    invoke(parent, new Object[] {realObject});
                 }
             }
         };
@@ -0,0 +1,240 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.tools.ant.util.FileUtils;
+
+/**
+ * Process wide pool of the archives opened by {@link AntClassLoader}
+ * instances.
+ *
+ * <p>All class loaders which have the same jar on their classpath
+ * share a single {@link JarFile} instance.  The instances are
+ * reference counted and closed once the last class loader using them
+ * has been cleaned up or garbage collected.  A jar that has been modified since it has
+ * been opened is opened again for class loaders asking for it later
+ * on, loaders holding the old instance keep using it.</p>
+ *
+ * @since Ant 1.10.0
+ */
+final class JarFilePool {
+
+    /** Open archives keyed by path, timestamp and size. */
+    private static final Map<String, PooledJarFile> BY_KEY =
+        new HashMap<String, PooledJarFile>();
+
+    /** Open archives keyed by the JarFile handed out. */
+    private static final Map<JarFile, PooledJarFile> BY_JAR =
+        new IdentityHashMap<JarFile, PooledJarFile>();
+
+    /** Users that have been garbage collected without releasing their archives. */
+    private static final ReferenceQueue<Object> COLLECTED_OWNERS =
+        new ReferenceQueue<Object>();
+
+    /** Utility class. */
+    private JarFilePool() {
+    }
+
+    /**
+     * Obtains a shared JarFile for the given archive.  Each call must
+     * be paired with a call to {@link #release release} using the same
+     * owner, the reference is released automatically once the owner
+     * has been garbage collected.
+     *
+     * @param file the archive to open
+     * @param owner the user of the archive
+     * @return the shared JarFile
+     * @throws IOException if the archive cannot be opened
+     */
+    static JarFile acquire(final File file, final Object owner) throws IOException {
+        final String key = getKey(file);
+        synchronized (BY_KEY) {
+            expungeCollectedOwners();
+            PooledJarFile pooled = BY_KEY.get(key);
+            if (pooled == null) {
+                pooled = new PooledJarFile(key, new JarFile(file));
+                BY_KEY.put(key, pooled);
+                BY_JAR.put(pooled.jarFile, pooled);
+            }
+            pooled.owners.add(new Owner(owner, pooled));
+            return pooled.jarFile;
+        }
+    }
+
+    /**
+     * Gives a JarFile obtained via {@link #acquire acquire} back to the
+     * pool, closes it if it is no longer used by anybody.
+     *
+     * @param jarFile the JarFile, may be null
+     * @param owner the user that has acquired the JarFile
+     */
+    static void release(final JarFile jarFile, final Object owner) {
+        if (jarFile == null) {
+            return;
+        }
+        synchronized (BY_KEY) {
+            expungeCollectedOwners();
+            final PooledJarFile pooled = BY_JAR.get(jarFile);
+            if (pooled == null) {
+                // not pooled
+                FileUtils.close(jarFile);
+                return;
+            }
+            for (final Iterator<Owner> it = pooled.owners.iterator(); it.hasNext();) {
+                final Owner o = it.next();
+                if (o.get() == owner) {
+                    it.remove();
+                    o.clear();
+                    break;
+                }
+            }
+            closeIfUnused(pooled);
+        }
+    }
+
+    /**
+     * Number of class loaders currently using the given JarFile.
+     *
+     * @param jarFile the JarFile
+     * @return the number of references, 0 if the JarFile is not pooled
+     */
+    static int getReferenceCount(final JarFile jarFile) {
+        synchronized (BY_KEY) {
+            expungeCollectedOwners();
+            final PooledJarFile pooled = BY_JAR.get(jarFile);
+            return pooled == null ? 0 : pooled.owners.size();
+        }
+    }
+
+    /**
+     * Drops the references of owners that have been garbage collected.
+     * Must be called while holding the lock on BY_KEY.
+     */
+    private static void expungeCollectedOwners() {
+        Owner o;
+        while ((o = (Owner) COLLECTED_OWNERS.poll()) != null) {
+            if (o.pooled.owners.remove(o)) {
+                closeIfUnused(o.pooled);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock on BY_KEY.
+     */
+    private static void closeIfUnused(final PooledJarFile pooled) {
+        if (!pooled.owners.isEmpty()) {
+            return;
+        }
+        BY_JAR.remove(pooled.jarFile);
+        if (BY_KEY.get(pooled.key) == pooled) {
+            BY_KEY.remove(pooled.key);
+        }
+        FileUtils.close(pooled.jarFile);
+    }
+
+    /**
+     * The names of all directories (packages in the case of classes)
+     * that contain entries of the given JarFile, the root directory is
+     * represented by the empty string.
+     *
+     * <p>The result is computed once per archive and shared by all
+     * users of the pooled JarFile.</p>
+     *
+     * @param jarFile the JarFile
+     * @return an unmodifiable set of directory names without trailing
+     * slashes
+     */
+    static Set<String> getDirectories(final JarFile jarFile) {
+        final PooledJarFile pooled;
+        synchronized (BY_KEY) {
+            pooled = BY_JAR.get(jarFile);
+        }
+        if (pooled == null) {
+            return collectDirectories(jarFile);
+        }
+        synchronized (pooled) {
+            if (pooled.directories == null) {
+                pooled.directories = collectDirectories(jarFile);
+            }
+            return pooled.directories;
+        }
+    }
+
+    private static Set<String> collectDirectories(final JarFile jarFile) {
+        final Set<String> directories = new HashSet<String>();
+        directories.add("");
+        for (final Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+            String name = e.nextElement().getName();
+            int slash = name.lastIndexOf('/');
+            while (slash > 0) {
+                name = name.substring(0, slash);
+                if (!directories.add(name)) {
+                    // parents have been added as well
+                    break;
+                }
+                slash = name.lastIndexOf('/');
+            }
+        }
+        return Collections.unmodifiableSet(directories);
+    }
+
+    private static String getKey(final File file) {
+        // the numbers can't contain a colon, so the path always starts
+        // after the first one
+        return file.lastModified() + "-" + file.length() + ":" + file.getAbsolutePath();
+    }
+
+    /** A shared archive and its users. */
+    private static final class PooledJarFile {
+        private final String key;
+        private final JarFile jarFile;
+        private final Set<Owner> owners = new HashSet<Owner>();
+        private Set<String> directories;
+
+        private PooledJarFile(final String key, final JarFile jarFile) {
+            this.key = key;
+            this.jarFile = jarFile;
+        }
+    }
+
+    /** One reference to a shared archive. */
+    private static final class Owner extends WeakReference<Object> {
+        private final PooledJarFile pooled;
+
+        private Owner(final Object owner, final PooledJarFile pooled) {
+            super(owner, COLLECTED_OWNERS);
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.tools.ant;
+
+/**
+ * Instances of classes that implement this interface declare which
+ * log messages they are interested in.
+ *
+ * <p>A project doesn't create and dispatch events for messages none
+ * of its listeners is interested in.  Listeners that don't implement
+ * this interface receive all messages and thus disable the
+ * filtering.</p>
+ *
+ * <p>The level is queried whenever a message is logged, so a
+ * listener may change it at any time.  Implementations should
+ * return it quickly.</p>
+ *
+ * @see Project#addBuildListener(BuildListener)
+ * @see Project#isLoggable(int)
+ *
+ * @since Ant 1.10.0
+ */
+public interface LevelAwareBuildListener extends BuildListener {
+
+    /**
+     * The highest message priority this listener wants to receive.
+     *
+     * <p>Only messages with a priority lower than or equal to the
+     * returned level are passed to {@link #messageLogged
+     * messageLogged}.  A value lower than {@link Project#MSG_ERR}
+     * means the listener is not interested in any messages.</p>
+     *
+     * @return the logging level of the listener
+     */
+    int getMessageOutputLevel();
+}
@@ -289,5 +289,41 @@ public final class MagicNames {
      * Value {@value}
      */
     public static final String HTTP_AGENT_PROPERTY = "ant.http.agent";
+
+    /**
+     * Name of the property that enables sharing the results of
+     * identical fileset and dirset scans inside of a project.
+     *
+     * Value: {@value}
+     * @since Ant 1.10.0
+     */
+    public static final String SCAN_CACHE = "ant.scancache";
+
+    /**
+     * Reference name for the project's cache of fileset and dirset
+     * scans.
+     *
+     * Value: {@value}
+     * @since Ant 1.10.0
+     */
+    public static final String REFID_SCAN_CACHE = "ant.ScanCache";
+
+    /**
+     * Name of the property that can be set to false in order to
+     * disable sharing script engines and compiled scripts between
+     * the script tasks, types and definitions of a project.
+     *
+     * Value: {@value}
+     * @since Ant 1.10.0
+     */
+    public static final String SCRIPT_CACHE = "ant.scriptcache";
+
+    /**
+     * Reference name for the project's cache of script engines.
+     *
+     * Value: {@value}
+     * @since Ant 1.10.0
+     */
+    public static final String REFID_SCRIPT_CACHE = "ant.ScriptEngineCache";
 }
 
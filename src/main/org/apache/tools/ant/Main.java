@@ -127,6 +127,12 @@ public class Main implements AntMain {
      */
     private boolean silent = false;
 
+    /**
+     * Whether messages are passed to the listeners on a separate
+     * thread.
+     */
+    private boolean asyncLogging = false;
+
     /**
      * Whether or not this instance has successfully been
      * constructed and is ready to run.
@@ -406,6 +412,8 @@ public class Main implements AntMain {
                 throw new BuildException(msg);
             } else if (arg.equals("-autoproxy")) {
                 proxy = true;
+            } else if (arg.equals("-asynclog")) {
+                asyncLogging = true;
             } else if (arg.startsWith("-")) {
                 boolean processed = false;
                 for (final ArgumentProcessor processor : processorRegistry.getProcessors()) {
@@ -766,6 +774,7 @@ public class Main implements AntMain {
 
         final Project project = new Project();
         project.setCoreLoader(coreLoader);
+        project.setAsyncLogging(asyncLogging);
 
         Throwable error = null;
 
@@ -1007,6 +1016,10 @@ public class Main implements AntMain {
         }
 
         logger.setMessageOutputLevel(msgOutputLevel);
+        if (asyncLogging && logger instanceof DefaultLogger) {
+            // the project flushes the logger after each batch of messages
+            ((DefaultLogger) logger).setAutoFlush(false);
+        }
         logger.setOutputPrintStream(out);
         logger.setErrorPrintStream(err);
         logger.setEmacsMode(emacsMode);
@@ -1053,6 +1066,8 @@ public class Main implements AntMain {
                 + "                         ${user.home}/.ant/lib");
         System.out.println("  -noclasspath           Run ant without using CLASSPATH");
         System.out.println("  -autoproxy             Java1.5+: use the OS proxy settings");
+        System.out.println("  -asynclog              pass log messages to the loggers and listeners");
+        System.out.println("                         on a separate thread");
         System.out.println("  -main <class>          override Ant's normal entry point");
         for (final ArgumentProcessor processor : ArgumentProcessorRegistry.getInstance().getProcessors()) {
             processor.printUsage(System.out);
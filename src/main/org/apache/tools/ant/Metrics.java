@@ -0,0 +1,165 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide counters updated by Ant's core classes.
+ *
+ * <p>Counters are striped so threads updating them concurrently
+ * don't contend with each other, an update costs little more than
+ * incrementing a field.  They are never reset, code interested in
+ * the values for a single build - like {@link
+ * org.apache.tools.ant.listener.MetricsListener MetricsListener} -
+ * takes a {@link #snapshot snapshot} when the build starts and
+ * subtracts it from the values at the end.</p>
+ *
+ * <p>Tasks and other extensions can register counters of their
+ * own.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public final class Metrics {
+
+    private static final ConcurrentMap<String, Counter> COUNTERS =
+        new ConcurrentHashMap<String, Counter>();
+
+    /** Directory entries examined by {@link DirectoryScanner}. */
+    public static final Counter FILES_SCANNED =
+        register("directoryScanner.filesScanned");
+
+    /**
+     * Bytes written to the destination resources by {@link
+     * org.apache.tools.ant.util.ResourceUtils#copyResource
+     * ResourceUtils.copyResource}, after filtering and transcoding.
+     */
+    public static final Counter BYTES_COPIED = register("resourceUtils.bytesCopied");
+
+    /** Entries written by the archiving tasks based on &lt;zip&gt;. */
+    public static final Counter ZIP_ENTRIES_WRITTEN = register("zip.entriesWritten");
+
+    /** Processes started by {@link org.apache.tools.ant.taskdefs.Execute Execute}. */
+    public static final Counter PROCESSES_LAUNCHED = register("execute.processesLaunched");
+
+    /** Instances of {@link AntClassLoader} created. */
+    public static final Counter CLASS_LOADERS_CREATED = register("antClassLoader.created");
+
+    /** Nanoseconds spent parsing build files. */
+    public static final Counter PARSE_TIME = register("projectHelper.parseTimeNanos");
+
+    /**
+     * Nanoseconds threads logging messages have spent waiting for the
+     * build listeners or the asynchronous log dispatcher.
+     */
+    public static final Counter LOGGING_TIME = register("logging.blockedTimeNanos");
+
+    /** Utility class. */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter of the given name, creating it if necessary.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public static Counter register(final String name) {
+        final Counter c = COUNTERS.get(name);
+        if (c != null) {
+            return c;
+        }
+        final Counter created = new Counter(name);
+        final Counter existing = COUNTERS.putIfAbsent(name, created);
+        return existing == null ? created : existing;
+    }
+
+    /**
+     * The current values of all counters.
+     *
+     * @return a map from counter name to value, sorted by name
+     */
+    public static Map<String, Long> snapshot() {
+        final Map<String, Long> values = new TreeMap<String, Long>();
+        for (final Counter c : COUNTERS.values()) {
+            values.put(c.getName(), Long.valueOf(c.get()));
+        }
+        return values;
+    }
+
+    /**
+     * The difference between the current values of all counters and
+     * an earlier {@link #snapshot snapshot}.
+     *
+     * @param since the earlier snapshot
+     * @return a map from counter name to value, sorted by name
+     */
+    public static Map<String, Long> since(final Map<String, Long> since) {
+        final Map<String, Long> values = snapshot();
+        for (final Map.Entry<String, Long> e : values.entrySet()) {
+            final Long before = since.get(e.getKey());
+            if (before != null) {
+                e.setValue(Long.valueOf(e.getValue().longValue() - before.longValue()));
+            }
+        }
+        return values;
+    }
+
+    /** A named counter. */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * The name of the counter.
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /** Adds one to the counter. */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * Adds to the counter.
+         * @param delta the amount to add
+         */
+        public void add(final long delta) {
+            value.add(delta);
+        }
+
+        /**
+         * The current value.
+         * @return the sum of all updates so far
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+}
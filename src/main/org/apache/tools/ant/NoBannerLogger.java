@@ -71,6 +71,17 @@ public class NoBannerLogger extends DefaultLogger {
         targetName = null;
     }
 
+    /**
+     * Enabled, {@link #messageLogged messageLogged} ignores messages
+     * above the message output level.
+     *
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
+
     /**
      * Logs a message for a target if it is of an appropriate
      * priority, also logging the name of the target if this
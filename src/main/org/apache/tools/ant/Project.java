@@ -176,6 +176,13 @@ public class Project implements ResourceFactory {
     /** List of listeners to notify of build events. */
     private volatile BuildListener[] listeners = new BuildListener[0];
 
+    /**
+     * The listeners as LevelAwareBuildListeners, null if any of them
+     * doesn't implement the interface and thus wants all messages.
+     */
+    private volatile LevelAwareBuildListener[] levelAwareListeners =
+        new LevelAwareBuildListener[0];
+
     /** for each thread, record whether it is currently executing
         messageLogged */
     private final ThreadLocal<Boolean> isLoggingMessage = new ThreadLocal<Boolean>() {
@@ -185,6 +192,9 @@ public class Project implements ResourceFactory {
             }
         };
 
+    /** delivers "message logged" events on a separate thread if set */
+    private volatile AsyncMessageDispatcher asyncDispatcher;
+
     /**
      * The Ant core classloader--may be <code>null</code> if using
      * parent classloader.
@@ -291,6 +301,7 @@ public class Project implements ResourceFactory {
         subProject.setDefaultInputStream(getDefaultInputStream());
         subProject.setKeepGoingMode(this.isKeepGoingMode());
         subProject.setExecutor(getExecutor().getSubProjectExecutor());
+        subProject.asyncDispatcher = asyncDispatcher;
     }
 
     /**
@@ -403,6 +414,7 @@ public class Project implements ResourceFactory {
             System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
             newListeners[listeners.length] = listener;
             listeners = newListeners;
+            updateLevelAwareListeners();
         }
     }
 
@@ -424,12 +436,58 @@ public class Project implements ResourceFactory {
                     System.arraycopy(listeners, i + 1, newListeners, i,
                                      listeners.length - i - 1);
                     listeners = newListeners;
+                    updateLevelAwareListeners();
                     break;
                 }
             }
         }
     }
 
+    /**
+     * Recalculates the listeners consulted by {@link #isLoggable
+     * isLoggable}, must be called while holding the listeners lock.
+     */
+    private void updateLevelAwareListeners() {
+        final LevelAwareBuildListener[] levelAware =
+            new LevelAwareBuildListener[listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            if (!(listeners[i] instanceof LevelAwareBuildListener)) {
+                levelAwareListeners = null;
+                return;
+            }
+            levelAware[i] = (LevelAwareBuildListener) listeners[i];
+        }
+        levelAwareListeners = levelAware;
+    }
+
+    /**
+     * Whether any of the build listeners is interested in messages of
+     * the given priority.
+     *
+     * <p>Messages nobody is interested in are discarded by the log
+     * methods anyway, code logging messages that are expensive to
+     * build can use this method to avoid building them in the first
+     * place.</p>
+     *
+     * @param priority the priority of the message
+     * @return false if no listener would receive the message
+     * @see LevelAwareBuildListener
+     * @since Ant 1.10.0
+     */
+    public boolean isLoggable(final int priority) {
+        final LevelAwareBuildListener[] levelAware = levelAwareListeners;
+        if (levelAware == null) {
+            return true;
+        }
+        // levels may change at any time, so they are not cached
+        for (int i = 0; i < levelAware.length; i++) {
+            if (priority <= levelAware[i].getMessageOutputLevel()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Return a copy of the list of build listeners for the project.
      *
@@ -445,6 +503,49 @@ public class Project implements ResourceFactory {
         }
     }
 
+    /**
+     * Whether "message logged" events are delivered to the build
+     * listeners on a separate thread.
+     *
+     * <p>If enabled, logging a message only queues the event and the
+     * listeners receive the queued events in batches.  All other
+     * build events wait until the messages logged before them have
+     * been delivered, so listeners still see all events in order.
+     * Listeners implementing {@link java.io.Flushable} are flushed
+     * after each batch and after each of the other events.</p>
+     *
+     * <p>Sub-projects initialized via {@link #initSubProject
+     * initSubProject} share the setting and the thread of this
+     * project.  The thread is stopped when the build finishes.</p>
+     *
+     * @param async whether to deliver messages asynchronously
+     * @since Ant 1.10.0
+     */
+    public void setAsyncLogging(final boolean async) {
+        final AsyncMessageDispatcher d = asyncDispatcher;
+        if (async && d == null) {
+            asyncDispatcher = new AsyncMessageDispatcher(this);
+        } else if (!async && d != null) {
+            asyncDispatcher = null;
+            if (d.getOwner() == this) {
+                d.close();
+            } else {
+                d.awaitDelivery();
+            }
+        }
+    }
+
+    /**
+     * Whether "message logged" events are delivered to the build
+     * listeners on a separate thread.
+     *
+     * @return true if messages are delivered asynchronously
+     * @since Ant 1.10.0
+     */
+    public boolean isAsyncLogging() {
+        return asyncDispatcher != null;
+    }
+
     /**
      * Write a message to the log with the default log level
      * of MSG_INFO .
@@ -2088,11 +2189,13 @@ public class Project implements ResourceFactory {
      * to the build listeners for this project.
      */
     public void fireBuildStarted() {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(this);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].buildStarted(event);
         }
+        flushListeners(currListeners);
     }
 
     /**
@@ -2103,12 +2206,22 @@ public class Project implements ResourceFactory {
      *                  a successful build.
      */
     public void fireBuildFinished(final Throwable exception) {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(this);
         event.setException(exception);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].buildFinished(event);
         }
+        final AsyncMessageDispatcher d = asyncDispatcher;
+        if (d != null && d.getOwner() == this) {
+            // deliver messages logged by listeners and stop the thread
+            asyncDispatcher = null;
+            d.close();
+        }
+        if (d != null) {
+            AsyncMessageDispatcher.flush(currListeners);
+        }
         // Inform IH to clear the cache
         IntrospectionHelper.clearCache();
     }
@@ -2120,6 +2233,7 @@ public class Project implements ResourceFactory {
      * @since Ant 1.6.2
      */
     public void fireSubBuildStarted() {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(this);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
@@ -2127,6 +2241,7 @@ public class Project implements ResourceFactory {
                 ((SubBuildListener) currListeners[i]).subBuildStarted(event);
             }
         }
+        flushListeners(currListeners);
     }
 
     /**
@@ -2139,6 +2254,7 @@ public class Project implements ResourceFactory {
      * @since Ant 1.6.2
      */
     public void fireSubBuildFinished(final Throwable exception) {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(this);
         event.setException(exception);
         final BuildListener[] currListeners = listeners;
@@ -2147,6 +2263,7 @@ public class Project implements ResourceFactory {
                 ((SubBuildListener) currListeners[i]).subBuildFinished(event);
             }
         }
+        flushListeners(currListeners);
     }
 
     /**
@@ -2157,11 +2274,13 @@ public class Project implements ResourceFactory {
      *               Must not be <code>null</code>.
      */
     protected void fireTargetStarted(final Target target) {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(target);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].targetStarted(event);
         }
+        flushListeners(currListeners);
 
     }
 
@@ -2176,12 +2295,14 @@ public class Project implements ResourceFactory {
      *                  a successful build.
      */
     protected void fireTargetFinished(final Target target, final Throwable exception) {
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(target);
         event.setException(exception);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].targetFinished(event);
         }
+        flushListeners(currListeners);
 
     }
 
@@ -2195,11 +2316,13 @@ public class Project implements ResourceFactory {
     protected void fireTaskStarted(final Task task) {
         // register this as the current task on the current thread.
         registerThreadTask(Thread.currentThread(), task);
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(task);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].taskStarted(event);
         }
+        flushListeners(currListeners);
     }
 
     /**
@@ -2216,12 +2339,14 @@ public class Project implements ResourceFactory {
         registerThreadTask(Thread.currentThread(), null);
         System.out.flush();
         System.err.flush();
+        awaitLoggedMessages();
         final BuildEvent event = new BuildEvent(task);
         event.setException(exception);
         final BuildListener[] currListeners = listeners;
         for (int i = 0; i < currListeners.length; i++) {
             currListeners[i].taskFinished(event);
         }
+        flushListeners(currListeners);
 
     }
 
@@ -2264,9 +2389,28 @@ public class Project implements ResourceFactory {
              */
             return;
         }
+        final BuildListener[] currListeners = listeners;
+        final AsyncMessageDispatcher d = asyncDispatcher;
+        final long start = System.nanoTime();
+        try {
+            if (d == null || !d.enqueue(this, currListeners, event)) {
+                dispatchMessageLogged(currListeners, event);
+            }
+        } finally {
+            Metrics.LOGGING_TIME.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Passes a "message logged" event to the given listeners.
+     *
+     * @param currListeners the listeners to notify
+     * @param event the event
+     */
+    void dispatchMessageLogged(final BuildListener[] currListeners,
+                               final BuildEvent event) {
         try {
             isLoggingMessage.set(Boolean.TRUE);
-            final BuildListener[] currListeners = listeners;
             for (int i = 0; i < currListeners.length; i++) {
                 currListeners[i].messageLogged(event);
             }
@@ -2275,6 +2419,42 @@ public class Project implements ResourceFactory {
         }
     }
 
+    /**
+     * Passes a "message logged" event to a single listener.
+     *
+     * @param listener the listener to notify
+     * @param event the event
+     */
+    void dispatchMessageLogged(final BuildListener listener,
+                               final BuildEvent event) {
+        try {
+            isLoggingMessage.set(Boolean.TRUE);
+            listener.messageLogged(event);
+        } finally {
+            isLoggingMessage.set(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Waits until all messages logged asynchronously so far have been
+     * passed to the listeners.
+     */
+    private void awaitLoggedMessages() {
+        final AsyncMessageDispatcher d = asyncDispatcher;
+        if (d != null) {
+            d.awaitDelivery();
+        }
+    }
+
+    /**
+     * Flushes the listeners if messages are logged asynchronously.
+     */
+    private void flushListeners(final BuildListener[] currListeners) {
+        if (asyncDispatcher != null) {
+            AsyncMessageDispatcher.flush(currListeners);
+        }
+    }
+
     /**
      * Send a &quot;message logged&quot; project level event
      * to the build listeners for this project.
@@ -2302,6 +2482,9 @@ public class Project implements ResourceFactory {
      */
     protected void fireMessageLogged(final Project project, final String message,
             final Throwable throwable, final int priority) {
+        if (!isLoggable(priority)) {
+            return;
+        }
         final BuildEvent event = new BuildEvent(project);
         event.setException(throwable);
         fireMessageLoggedEvent(event, message, priority);
@@ -2334,6 +2517,9 @@ public class Project implements ResourceFactory {
      */
     protected void fireMessageLogged(final Target target, final String message,
             final Throwable throwable, final int priority) {
+        if (!isLoggable(priority)) {
+            return;
+        }
         final BuildEvent event = new BuildEvent(target);
         event.setException(throwable);
         fireMessageLoggedEvent(event, message, priority);
@@ -2365,6 +2551,9 @@ public class Project implements ResourceFactory {
      */
     protected void fireMessageLogged(final Task task, final String message,
             final Throwable throwable, final int priority) {
+        if (!isLoggable(priority)) {
+            return;
+        }
         final BuildEvent event = new BuildEvent(task);
         event.setException(throwable);
         fireMessageLoggedEvent(event, message, priority);
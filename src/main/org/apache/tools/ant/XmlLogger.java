@@ -52,9 +52,10 @@ import org.w3c.dom.Text;
  *
  * @see Project#addBuildListener(BuildListener)
  */
-public class XmlLogger implements BuildLogger {
+public class XmlLogger implements BuildLogger, LevelAwareBuildListener {
 
     private int msgOutputLevel = Project.MSG_DEBUG;
+
     private PrintStream outStream;
 
     /** DocumentBuilder to use when creating the document to start with. */
@@ -436,6 +437,36 @@ public class XmlLogger implements BuildLogger {
         msgOutputLevel = level;
     }
 
+    /**
+     * The highest message priority this logger wants to receive.
+     *
+     * <p>This is the message output level if {@link
+     * #isLevelFilteringEnabled level filtering} is enabled and
+     * <code>Integer.MAX_VALUE</code> otherwise.</p>
+     *
+     * @return the logging level of the logger
+     * @since Ant 1.10.0
+     */
+    public int getMessageOutputLevel() {
+        return isLevelFilteringEnabled() ? msgOutputLevel : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Whether the project may skip messages above the message output
+     * level instead of passing them to {@link #messageLogged
+     * messageLogged}.
+     *
+     * <p>Only enabled for XmlLogger itself, subclasses that don't
+     * need messages of all levels should override this method and
+     * return true.</p>
+     *
+     * @return whether messages above the output level may be skipped
+     * @since Ant 1.10.0
+     */
+    protected boolean isLevelFilteringEnabled() {
+        return getClass() == XmlLogger.class;
+    }
+
     /**
      * Set the output stream to which logging output is sent when operating
      * as a logger.
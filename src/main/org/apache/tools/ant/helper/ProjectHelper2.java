@@ -34,6 +34,7 @@ import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.ExtensionPoint;
 import org.apache.tools.ant.Location;
 import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Metrics;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.ProjectHelper;
 import org.apache.tools.ant.RuntimeConfigurable;
@@ -79,6 +80,13 @@ public class ProjectHelper2 extends ProjectHelper {
      */
     private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
 
+    /** Whether the current thread is parsing a build file. */
+    private static final ThreadLocal<Boolean> PARSING = new ThreadLocal<Boolean>() {
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
+
     /**
      * Whether this instance of ProjectHelper can parse an Antlib
      * descriptor given by the URL and return its content as an
@@ -278,7 +286,19 @@ public class ProjectHelper2 extends ProjectHelper {
             parser.setEntityResolver(hb);
             parser.setErrorHandler(hb);
             parser.setDTDHandler(hb);
-            parser.parse(inputSource);
+            // imported files are parsed while the importing file is
+            // being parsed, only count the time of the outermost parse
+            final boolean outermost = !PARSING.get().booleanValue();
+            final long start = System.nanoTime();
+            try {
+                PARSING.set(Boolean.TRUE);
+                parser.parse(inputSource);
+            } finally {
+                if (outermost) {
+                    PARSING.set(Boolean.FALSE);
+                    Metrics.PARSE_TIME.add(System.nanoTime() - start);
+                }
+            }
         } catch (SAXParseException exc) {
             Location location = new Location(exc.getSystemId(), exc.getLineNumber(), exc
                                              .getColumnNumber());
@@ -241,4 +241,15 @@ public class AnsiColorLogger extends DefaultLogger {
             stream.println(strmessage);
         }
     }
+
+    /**
+     * Enabled, messages are only colored, not filtered differently.
+     *
+     * @return true
+     * @since Ant 1.10.0
+     */
+    @Override
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of a running build, see
+ * {@link MetricsListener}.
+ *
+ * @since Ant 1.10.0
+ */
+public interface BuildMetricsMXBean {
+
+    /**
+     * The name of the project being built.
+     *
+     * @return the name, the empty string if the project has no name
+     */
+    String getProjectName();
+
+    /**
+     * Milliseconds since the build has started.
+     *
+     * @return the elapsed time
+     */
+    long getElapsedTime();
+
+    /**
+     * The changes of all {@link org.apache.tools.ant.Metrics Metrics}
+     * counters since the build has started.
+     *
+     * @return a map from counter name to value
+     */
+    Map<String, Long> getCounters();
+}
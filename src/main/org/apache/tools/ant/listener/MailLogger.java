@@ -427,6 +427,18 @@ public class MailLogger extends DefaultLogger {
         mailer.setHeaders(new Vector<Header>());
         mailer.send();
     }
+
+    /**
+     * Enabled, only messages within the output level are buffered.
+     *
+     * @return true
+     * @since Ant 1.10.0
+     */
+    @Override
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
+
     private Vector<EmailAddress> vectorizeEmailAddresses(String listString) {
         Vector<EmailAddress> emailList = new Vector<EmailAddress>();
         StringTokenizer tokens = new StringTokenizer(listString, ",");
@@ -0,0 +1,236 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.LevelAwareBuildListener;
+import org.apache.tools.ant.Metrics;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.util.FileUtils;
+
+/**
+ * Publishes the {@link Metrics} of a build.
+ *
+ * <p>While the build is running the counters are available via JMX
+ * as an MXBean named
+ * <code>org.apache.tools.ant:type=BuildMetrics,id=<em>n</em></code>.
+ * When the build has finished they are written as a JSON object to
+ * the file named by the property <code>ant.metrics.file</code> -
+ * <code>ant-metrics.json</code> by default, the empty string disables
+ * the file.</p>
+ *
+ * <p>All values are the changes since the build has started.  As the
+ * counters are shared by all builds running inside the same VM the
+ * values include the work of concurrent builds.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public class MetricsListener implements BuildListener, LevelAwareBuildListener,
+                                        BuildMetricsMXBean {
+
+    /** Name of the property holding the name of the metrics file. */
+    public static final String METRICS_FILE_PROPERTY = "ant.metrics.file";
+
+    /** Domain and type of the MXBeans' names. */
+    public static final String OBJECT_NAME_PREFIX = "org.apache.tools.ant:type=BuildMetrics";
+
+    private static final String DEFAULT_METRICS_FILE = "ant-metrics.json";
+
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private volatile Project project;
+    private volatile Map<String, Long> baseline = Collections.emptyMap();
+    private volatile long startTime;
+    private ObjectName objectName;
+
+    /**
+     * Takes the baseline of the counters and registers the MXBean.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public void buildStarted(BuildEvent event) {
+        project = event.getProject();
+        startTime = System.currentTimeMillis();
+        baseline = Metrics.snapshot();
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + ",id="
+                                                   + IDS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (final JMException ex) {
+            project.log("Unable to register build metrics MXBean: " + ex,
+                        Project.MSG_VERBOSE);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean and writes the metrics file.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public void buildFinished(BuildEvent event) {
+        final Map<String, Long> counters = getCounters();
+        final long elapsed = getElapsedTime();
+        unregister();
+        final String fileName = project == null ? null
+            : project.getProperty(METRICS_FILE_PROPERTY);
+        final String name = fileName == null ? DEFAULT_METRICS_FILE : fileName;
+        if (name.length() == 0) {
+            return;
+        }
+        final File file = project == null ? new File(name) : project.resolveFile(name);
+        PrintWriter w = null;
+        try {
+            w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+                                                       "UTF-8"));
+            w.println("{");
+            w.println("  \"project\": " + JsonUtils.quote(getProjectName()) + ",");
+            w.println("  \"success\": " + (event.getException() == null) + ",");
+            w.println("  \"startTime\": " + startTime + ",");
+            w.println("  \"elapsedTime\": " + elapsed + ",");
+            w.print("  \"counters\": {");
+            for (final Iterator<Map.Entry<String, Long>> it = counters.entrySet().iterator();
+                 it.hasNext();) {
+                final Map.Entry<String, Long> e = it.next();
+                w.print("\n    " + JsonUtils.quote(e.getKey()) + ": " + e.getValue()
+                        + (it.hasNext() ? "," : "\n  "));
+            }
+            w.println("}");
+            w.println("}");
+            if (w.checkError()) {
+                final String msg = "Failed to write metrics to " + file;
+                if (project != null) {
+                    project.log(msg, Project.MSG_WARN);
+                } else {
+                    System.err.println(msg);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new BuildException("Unable to write metrics to " + file, ex);
+        } finally {
+            FileUtils.close(w);
+        }
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void targetStarted(BuildEvent event) {
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void targetFinished(BuildEvent event) {
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void taskStarted(BuildEvent event) {
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void taskFinished(BuildEvent event) {
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void messageLogged(BuildEvent event) {
+    }
+
+    /**
+     * The listener isn't interested in any messages.
+     *
+     * @return a level lower than {@link Project#MSG_ERR}
+     */
+    public int getMessageOutputLevel() {
+        return Project.MSG_ERR - 1;
+    }
+
+    /**
+     * The name of the project being built.
+     *
+     * @return the name, the empty string if the project has no name
+     */
+    public String getProjectName() {
+        final Project p = project;
+        final String name = p == null ? null : p.getName();
+        return name == null ? "" : name;
+    }
+
+    /**
+     * Milliseconds since the build has started.
+     *
+     * @return the elapsed time
+     */
+    public long getElapsedTime() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * The changes of all counters since the build has started.
+     *
+     * @return a map from counter name to value
+     */
+    public Map<String, Long> getCounters() {
+        return Metrics.since(baseline);
+    }
+
+    private void unregister() {
+        if (objectName != null) {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(objectName);
+            } catch (final JMException ex) {
+                // already gone
+            }
+            objectName = null;
+        }
+    }
+}
@@ -109,4 +109,15 @@ public class ProfileLogger extends DefaultLogger {
         log(msg);
     }
 
+    /**
+     * Enabled, messages are handled by the default logger.
+     *
+     * @return true
+     * @since Ant 1.10.0
+     */
+    @Override
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
+
 }
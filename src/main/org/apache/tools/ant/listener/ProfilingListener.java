@@ -0,0 +1,508 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.LevelAwareBuildListener;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.SubBuildListener;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.util.FileUtils;
+
+/**
+ * Records how long builds, sub-builds, targets and tasks take and on
+ * which thread they run.
+ *
+ * <p>When the build finishes two files are written:</p>
+ * <ul>
+ *   <li>a trace in the Chrome trace event format that can be loaded
+ *   into Chrome's <code>about:tracing</code> or similar tools,
+ *   named by the property <code>ant.profiler.trace.file</code> and
+ *   defaulting to <code>ant-profile.json</code>.</li>
+ *   <li>a summary with the critical path through the targets of each
+ *   project and tables of targets and tasks sorted by the time they
+ *   took, named by the property
+ *   <code>ant.profiler.summary.file</code> and defaulting to
+ *   <code>ant-profile.txt</code>.</li>
+ * </ul>
+ * <p>Setting one of the properties to the empty string disables the
+ * corresponding file.</p>
+ *
+ * <p>Tasks that run on threads started by another task, like the
+ * branches of <code>&lt;parallel&gt;</code>, are attributed to the
+ * task running on a thread of the parent thread group - the same way
+ * {@link Project#getThreadTask} finds the task of a thread.</p>
+ *
+ * <p>The critical path of a project is the chain of dependent targets
+ * with the biggest total duration, it is the shortest time the
+ * targets could have taken even if all independent targets had been
+ * run in parallel.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public class ProfilingListener implements SubBuildListener, LevelAwareBuildListener {
+
+    /** Name of the property holding the name of the trace file. */
+    public static final String TRACE_FILE_PROPERTY = "ant.profiler.trace.file";
+
+    /** Name of the property holding the name of the summary file. */
+    public static final String SUMMARY_FILE_PROPERTY = "ant.profiler.summary.file";
+
+    private static final String DEFAULT_TRACE_FILE = "ant-profile.json";
+    private static final String DEFAULT_SUMMARY_FILE = "ant-profile.txt";
+
+    private static final String BUILD = "build";
+    private static final String PROJECT = "project";
+    private static final String TARGET = "target";
+    private static final String TASK = "task";
+
+    private static final double NANOS_PER_MICRO = 1000d;
+    private static final double NANOS_PER_SECOND = 1000000000d;
+
+    /** all recorded spans in the order they have started */
+    private final List<Span> spans = new ArrayList<Span>();
+
+    /** open spans per thread */
+    private final Map<Thread, Deque<Span>> stacks = new HashMap<Thread, Deque<Span>>();
+
+    /** number used as thread id in the trace, by thread */
+    private final Map<Thread, Integer> threadIds = new LinkedHashMap<Thread, Integer>();
+
+    private Span build;
+
+    /**
+     * Starts recording.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void buildStarted(BuildEvent event) {
+        spans.clear();
+        stacks.clear();
+        threadIds.clear();
+        build = start(BUILD, projectName(event.getProject()), event.getProject(), null);
+    }
+
+    /**
+     * Stops recording and writes the trace and summary files.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void buildFinished(BuildEvent event) {
+        if (build == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (final Span s : spans) {
+            if (s.end == 0) {
+                s.end = now;
+            }
+        }
+        final Project project = event.getProject();
+        // the name isn't known before the build file has been parsed
+        build.name = projectName(project);
+        try {
+            final String trace = getProperty(project, TRACE_FILE_PROPERTY, DEFAULT_TRACE_FILE);
+            if (trace.length() > 0) {
+                final PrintWriter w = open(project, trace);
+                try {
+                    writeTrace(w);
+                } finally {
+                    FileUtils.close(w);
+                }
+            }
+            final String summary = getProperty(project, SUMMARY_FILE_PROPERTY,
+                                               DEFAULT_SUMMARY_FILE);
+            if (summary.length() > 0) {
+                final PrintWriter w = open(project, summary);
+                try {
+                    writeSummary(w);
+                } finally {
+                    FileUtils.close(w);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new BuildException("Unable to write profile", ex);
+        } finally {
+            build = null;
+        }
+    }
+
+    /**
+     * Records the start of a sub-build.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void subBuildStarted(BuildEvent event) {
+        start(PROJECT, projectName(event.getProject()), event.getProject(), null);
+    }
+
+    /**
+     * Records the end of a sub-build.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void subBuildFinished(BuildEvent event) {
+        finish(event.getProject());
+    }
+
+    /**
+     * Records the start of a target.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void targetStarted(BuildEvent event) {
+        final Target target = event.getTarget();
+        start(TARGET, target.getName(), event.getProject(), target);
+    }
+
+    /**
+     * Records the end of a target.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void targetFinished(BuildEvent event) {
+        finish(event.getTarget());
+    }
+
+    /**
+     * Records the start of a task.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void taskStarted(BuildEvent event) {
+        final Task task = event.getTask();
+        final Span s = start(TASK, task.getTaskName(), event.getProject(), task);
+        if (s != null) {
+            s.location = task.getLocation().toString().trim();
+            if (s.location.endsWith(":")) {
+                s.location = s.location.substring(0, s.location.length() - 1);
+            }
+        }
+    }
+
+    /**
+     * Records the end of a task.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public synchronized void taskFinished(BuildEvent event) {
+        finish(event.getTask());
+    }
+
+    /**
+     * Ignored.
+     *
+     * @param event ignored
+     */
+    public void messageLogged(BuildEvent event) {
+    }
+
+    /**
+     * The profiler isn't interested in any messages.
+     *
+     * @return a level lower than {@link Project#MSG_ERR}
+     */
+    public int getMessageOutputLevel() {
+        return Project.MSG_ERR - 1;
+    }
+
+    private Span start(final String category, final String name, final Project project,
+                       final Object key) {
+        if (category != BUILD && build == null) {
+            return null;
+        }
+        final Thread thread = Thread.currentThread();
+        Deque<Span> stack = stacks.get(thread);
+        if (stack == null) {
+            stack = new ArrayDeque<Span>();
+            stacks.put(thread, stack);
+        }
+        if (!threadIds.containsKey(thread)) {
+            threadIds.put(thread, Integer.valueOf(threadIds.size() + 1));
+        }
+        final Span parent = stack.isEmpty() ? findParent(thread) : stack.peek();
+        final Span s = new Span(category, name == null ? "" : name, project, key, thread,
+                                parent);
+        stack.push(s);
+        spans.add(s);
+        return s;
+    }
+
+    private void finish(final Object key) {
+        final Deque<Span> stack = stacks.get(Thread.currentThread());
+        if (stack == null) {
+            return;
+        }
+        for (final Span s : stack) {
+            if (s.key == key) {
+                final long now = System.nanoTime();
+                // close everything above it as well
+                Span popped;
+                do {
+                    popped = stack.pop();
+                    popped.end = now;
+                } while (popped != s);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the innermost open span of a thread in one of the parent
+     * thread groups of the given thread, the build if there is none.
+     */
+    private Span findParent(final Thread thread) {
+        for (ThreadGroup group = thread.getThreadGroup(); group != null;
+             group = group.getParent()) {
+            Span best = null;
+            for (final Map.Entry<Thread, Deque<Span>> e : stacks.entrySet()) {
+                if (e.getKey() != thread && e.getKey().getThreadGroup() == group
+                    && !e.getValue().isEmpty()) {
+                    final Span candidate = e.getValue().peek();
+                    if (best == null || candidate.start > best.start) {
+                        best = candidate;
+                    }
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return build;
+    }
+
+    private void writeTrace(final PrintWriter w) {
+        w.println("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (final Map.Entry<Thread, Integer> e : threadIds.entrySet()) {
+            w.print(first ? "" : ",\n");
+            first = false;
+            w.print("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":" + e.getValue()
+                    + ",\"args\":{\"name\":" + JsonUtils.quote(e.getKey().getName()) + "}}");
+        }
+        for (final Span s : spans) {
+            w.print(first ? "" : ",\n");
+            first = false;
+            w.print("{\"ph\":\"X\",\"cat\":" + JsonUtils.quote(s.category)
+                    + ",\"name\":" + JsonUtils.quote(s.name)
+                    + ",\"pid\":1,\"tid\":" + threadIds.get(s.thread)
+                    + ",\"ts\":" + micros(s.start - build.start)
+                    + ",\"dur\":" + micros(s.duration())
+                    + ",\"args\":{\"project\":" + JsonUtils.quote(projectName(s.project)));
+            if (s.location != null) {
+                w.print(",\"location\":" + JsonUtils.quote(s.location));
+            }
+            if (s.parent != null && s.parent.thread != s.thread) {
+                w.print(",\"parent\":" + JsonUtils.quote(s.parent.name));
+            }
+            w.print("}}");
+        }
+        w.println("\n]}");
+    }
+
+    private void writeSummary(final PrintWriter w) {
+        w.println("Total time: " + seconds(build.duration()));
+
+        // targets by project, in order of execution
+        final Map<Project, List<Span>> targetsByProject =
+            new IdentityHashMap<Project, List<Span>>();
+        final List<Project> projects = new ArrayList<Project>();
+        for (final Span s : spans) {
+            if (s.category == TARGET) {
+                List<Span> l = targetsByProject.get(s.project);
+                if (l == null) {
+                    l = new ArrayList<Span>();
+                    targetsByProject.put(s.project, l);
+                    projects.add(s.project);
+                }
+                l.add(s);
+            }
+        }
+        for (final Project p : projects) {
+            final List<Span> path = criticalPath(targetsByProject.get(p));
+            if (path.size() < 2 && p != build.project) {
+                continue;
+            }
+            long total = 0;
+            for (final Span s : path) {
+                total += s.duration();
+            }
+            w.println();
+            w.println("Critical path of project " + projectName(p) + ": " + seconds(total));
+            for (final Span s : path) {
+                w.println(String.format(Locale.ENGLISH, "%12s  %s",
+                                        seconds(s.duration()), s.name));
+            }
+        }
+
+        writeTable(w, "Targets", TARGET);
+        writeTable(w, "Tasks", TASK);
+    }
+
+    /**
+     * Calculates the chain of dependent targets with the biggest
+     * total duration, the first target of the chain comes first.
+     */
+    private static List<Span> criticalPath(final List<Span> targets) {
+        final Map<String, Span> byName = new HashMap<String, Span>();
+        for (final Span s : targets) {
+            // the later execution wins, if a target has run more than once
+            byName.put(s.name, s);
+        }
+        final Map<Span, Long> pathLength = new IdentityHashMap<Span, Long>();
+        final Map<Span, Span> predecessor = new IdentityHashMap<Span, Span>();
+        Span last = null;
+        // dependencies are always executed before the targets
+        // depending on them, so a single pass is enough
+        for (final Span s : targets) {
+            long longest = 0;
+            Span pred = null;
+            for (final Enumeration<String> e = ((Target) s.key).getDependencies();
+                 e.hasMoreElements();) {
+                final Span dep = byName.get(e.nextElement());
+                final Long l = dep == null ? null : pathLength.get(dep);
+                if (l != null && l.longValue() > longest) {
+                    longest = l.longValue();
+                    pred = dep;
+                }
+            }
+            final long length = longest + s.duration();
+            pathLength.put(s, Long.valueOf(length));
+            if (pred != null) {
+                predecessor.put(s, pred);
+            }
+            if (last == null || length > pathLength.get(last).longValue()) {
+                last = s;
+            }
+        }
+        final List<Span> path = new ArrayList<Span>();
+        for (Span s = last; s != null; s = predecessor.get(s)) {
+            path.add(s);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void writeTable(final PrintWriter w, final String title, final String category) {
+        final Map<String, long[]> totals = new HashMap<String, long[]>();
+        for (final Span s : spans) {
+            if (s.category == category) {
+                final String name = s.project == build.project
+                    ? s.name : projectName(s.project) + "." + s.name;
+                long[] t = totals.get(name);
+                if (t == null) {
+                    t = new long[2];
+                    totals.put(name, t);
+                }
+                t[0] += s.duration();
+                t[1]++;
+            }
+        }
+        final List<Map.Entry<String, long[]>> rows =
+            new ArrayList<Map.Entry<String, long[]>>(totals.entrySet());
+        Collections.sort(rows, new Comparator<Map.Entry<String, long[]>>() {
+                public int compare(final Map.Entry<String, long[]> a,
+                                   final Map.Entry<String, long[]> b) {
+                    final long d = b.getValue()[0] - a.getValue()[0];
+                    return d > 0 ? 1 : (d < 0 ? -1 : a.getKey().compareTo(b.getKey()));
+                }
+            });
+        w.println();
+        w.println(title + ":");
+        w.println(String.format(Locale.ENGLISH, "%12s %8s  %s", "Total", "Count", "Name"));
+        for (final Map.Entry<String, long[]> row : rows) {
+            w.println(String.format(Locale.ENGLISH, "%12s %8d  %s",
+                                    seconds(row.getValue()[0]), row.getValue()[1],
+                                    row.getKey()));
+        }
+    }
+
+    private static PrintWriter open(final Project project, final String name)
+        throws IOException {
+        return new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(project == null
+                                 ? new File(name) : project.resolveFile(name)),
+            "UTF-8"));
+    }
+
+    private static String getProperty(final Project project, final String name,
+                                      final String defaultValue) {
+        final String value = project == null ? null : project.getProperty(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static String projectName(final Project project) {
+        final String name = project == null ? null : project.getName();
+        return name == null ? "" : name;
+    }
+
+    private static String micros(final long nanos) {
+        return String.format(Locale.ENGLISH, "%.3f", nanos / NANOS_PER_MICRO);
+    }
+
+    private static String seconds(final long nanos) {
+        return String.format(Locale.ENGLISH, "%.3f s", nanos / NANOS_PER_SECOND);
+    }
+
+    /** A build, sub-build, target or task run. */
+    private static final class Span {
+        private final String category;
+        private String name;
+        private final Project project;
+        private final Object key;
+        private final Thread thread;
+        private final Span parent;
+        private final long start = System.nanoTime();
+        private long end;
+        private String location;
+
+        private Span(final String category, final String name, final Project project,
+                     final Object key, final Thread thread, final Span parent) {
+            this.category = category;
+            this.name = name;
+            this.project = project;
+            this.key = key == null ? project : key;
+            this.thread = thread;
+            this.parent = parent;
+        }
+
+        private long duration() {
+            return end - start;
+        }
+    }
+}
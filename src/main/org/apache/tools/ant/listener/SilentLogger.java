@@ -59,4 +59,9 @@ public class SilentLogger extends DefaultLogger {
         // log nothing
     }
 
+    @Override
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
+
 }
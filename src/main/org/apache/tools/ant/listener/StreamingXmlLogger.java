@@ -0,0 +1,514 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildLogger;
+import org.apache.tools.ant.LevelAwareBuildListener;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.util.DOMElementWriter;
+import org.apache.tools.ant.util.DateUtils;
+import org.apache.tools.ant.util.FileUtils;
+import org.apache.tools.ant.util.StringUtils;
+
+/**
+ * Writes an XML description of the build like {@link
+ * org.apache.tools.ant.XmlLogger XmlLogger} but writes elements as
+ * soon as they have started instead of keeping the whole log in
+ * memory until the build has finished.
+ *
+ * <p>As the time it took to run a target or task is only known once
+ * it has finished, it is written as attribute of a
+ * <code>finished</code> element that is the last child of the
+ * <code>build</code>, <code>target</code> and <code>task</code>
+ * elements.  The <code>error</code> attribute of the build is written
+ * to this element as well.</p>
+ *
+ * <p>The log is flushed whenever a target or task has finished, so
+ * if the build dies the file holds a complete prefix of the log that
+ * can be made well-formed by appending the end tags of the elements
+ * that are still open.</p>
+ *
+ * <p>Elements of targets and tasks running in threads other than the
+ * one that started the build are collected in memory until the
+ * outermost of them has finished, so output of parallel tasks doesn't
+ * get mixed up.</p>
+ *
+ * <p>Uses the same properties as XmlLogger for the name of the file
+ * and the stylesheet.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public class StreamingXmlLogger implements BuildLogger, LevelAwareBuildListener {
+
+    private static final String BUILD_TAG = "build";
+    private static final String TARGET_TAG = "target";
+    private static final String TASK_TAG = "task";
+    private static final String MESSAGE_TAG = "message";
+    private static final String STACKTRACE_TAG = "stacktrace";
+    private static final String FINISHED_TAG = "finished";
+    private static final String NAME_ATTR = "name";
+    private static final String TIME_ATTR = "time";
+    private static final String PRIORITY_ATTR = "priority";
+    private static final String LOCATION_ATTR = "location";
+    private static final String ERROR_ATTR = "error";
+
+    private static final String INDENT = "\t";
+
+    private final DOMElementWriter xmlWriter = new DOMElementWriter();
+
+    /** guards all fields below */
+    private final Object lock = new Object();
+
+    private int msgOutputLevel = Project.MSG_DEBUG;
+    private PrintStream outStream;
+
+    /** the log file, null until the first target or task starts */
+    private Writer out;
+
+    /** the project that is being built */
+    private Project project;
+
+    /** the thread that started the build */
+    private Thread mainThread;
+
+    /** elements written by the main thread */
+    private Fragment main;
+
+    /** elements written by other threads, not yet added to main */
+    private final Map<Thread, Fragment> fragments = new HashMap<Thread, Fragment>();
+
+    /**
+     * Fired when the build starts, writes the start tag of the build
+     * element.
+     *
+     * @param event An event with any relevant extra information.
+     */
+    public void buildStarted(BuildEvent event) {
+        synchronized (lock) {
+            project = event.getProject();
+            mainThread = Thread.currentThread();
+            main = new Fragment(0);
+            main.start(BUILD_TAG, null, null);
+        }
+    }
+
+    /**
+     * Fired when the build finishes, closes all open elements and the
+     * log file.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void buildFinished(BuildEvent event) {
+        synchronized (lock) {
+            if (main == null) {
+                return;
+            }
+            try {
+                for (final Fragment f : fragments.values()) {
+                    while (f.depth() > 0) {
+                        f.end(null);
+                    }
+                    main.append(f);
+                }
+                fragments.clear();
+                while (main.depth() > 1) {
+                    main.end(null);
+                }
+                main.end(event.getException());
+                open();
+                write(true);
+            } finally {
+                FileUtils.close(out);
+                out = null;
+                main = null;
+                project = null;
+                mainThread = null;
+            }
+        }
+    }
+
+    /**
+     * Fired when a target starts, writes the start tag of the target
+     * element.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void targetStarted(BuildEvent event) {
+        start(TARGET_TAG, event.getTarget().getName(), null);
+    }
+
+    /**
+     * Fired when a target finishes, writes the time it took and the
+     * end tag of the target element.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void targetFinished(BuildEvent event) {
+        end(null);
+    }
+
+    /**
+     * Fired when a task starts, writes the start tag of the task
+     * element.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void taskStarted(BuildEvent event) {
+        final Task task = event.getTask();
+        final String name = task.getTaskName();
+        start(TASK_TAG, name == null ? "" : name, task.getLocation().toString());
+    }
+
+    /**
+     * Fired when a task finishes, writes the time it took and the end
+     * tag of the task element.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void taskFinished(BuildEvent event) {
+        end(null);
+    }
+
+    /**
+     * Fired when a message is logged, writes a message element.
+     *
+     * @param event An event with any relevant extra information.
+     *              Will not be <code>null</code>.
+     */
+    public void messageLogged(BuildEvent event) {
+        final int priority = event.getPriority();
+        if (priority > msgOutputLevel) {
+            return;
+        }
+        final String name;
+        switch (priority) {
+            case Project.MSG_ERR:
+                name = "error";
+                break;
+            case Project.MSG_WARN:
+                name = "warn";
+                break;
+            case Project.MSG_INFO:
+                name = "info";
+                break;
+            default:
+                name = "debug";
+                break;
+        }
+        final Throwable ex = Project.MSG_DEBUG <= msgOutputLevel ? event.getException() : null;
+        synchronized (lock) {
+            if (main == null) {
+                return;
+            }
+            Fragment f = fragments.get(Thread.currentThread());
+            if (f == null) {
+                // messages of threads without open elements go
+                // wherever the main thread currently is
+                f = main;
+            }
+            f.message(name, event.getMessage(), ex);
+            if (f == main) {
+                write(false);
+            }
+        }
+    }
+
+    private void start(final String tag, final String name, final String location) {
+        synchronized (lock) {
+            if (main == null) {
+                return;
+            }
+            open();
+            Fragment f = main;
+            if (Thread.currentThread() != mainThread) {
+                f = fragments.get(Thread.currentThread());
+                if (f == null) {
+                    f = new Fragment(main.depth());
+                    fragments.put(Thread.currentThread(), f);
+                }
+            }
+            f.start(tag, name, location);
+            if (f == main) {
+                write(false);
+            }
+        }
+    }
+
+    private void end(final Throwable error) {
+        synchronized (lock) {
+            if (main == null) {
+                return;
+            }
+            if (Thread.currentThread() == mainThread) {
+                // never close the build element before the build has finished
+                if (main.depth() > 1) {
+                    main.end(error);
+                    write(true);
+                }
+                return;
+            }
+            final Fragment f = fragments.get(Thread.currentThread());
+            if (f != null && f.depth() > 0) {
+                f.end(error);
+                if (f.depth() == 0) {
+                    fragments.remove(Thread.currentThread());
+                    main.append(f);
+                    write(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the log file unless that has already happened, called once
+     * the first target or task starts as the properties defining the
+     * name of the file are not set when the build starts.
+     */
+    private void open() {
+        if (out != null) {
+            return;
+        }
+        final String outFilename = getProperty("XmlLogger.file", "log.xml");
+        final String xslUri = getProperty("ant.XmlLogger.stylesheet.uri", "log.xsl");
+        try {
+            OutputStream stream = outStream;
+            if (stream == null) {
+                stream = new FileOutputStream(outFilename);
+            }
+            out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            if (xslUri.length() > 0) {
+                out.write("<?xml-stylesheet type=\"text/xsl\" href=\"" + xslUri + "\"?>\n\n");
+            }
+        } catch (final IOException exc) {
+            throw new BuildException("Unable to write log file", exc);
+        }
+    }
+
+    private String getProperty(final String propertyName, final String defaultValue) {
+        final String value = project == null ? null : project.getProperty(propertyName);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Writes everything the main thread has collected since the last
+     * call to the log file.
+     */
+    private void write(final boolean flush) {
+        if (out == null) {
+            return;
+        }
+        try {
+            main.writeTo(out);
+            if (flush) {
+                out.flush();
+            }
+        } catch (final IOException exc) {
+            throw new BuildException("Unable to write log file", exc);
+        }
+    }
+
+    // -------------------------------------------------- BuildLogger interface
+
+    /**
+     * Set the logging level when using this as a Logger
+     *
+     * @param level the logging level -
+     *        see {@link org.apache.tools.ant.Project#MSG_ERR Project}
+     *        class for level definitions
+     */
+    public void setMessageOutputLevel(int level) {
+        msgOutputLevel = level;
+    }
+
+    /**
+     * The highest message priority this logger writes out.
+     *
+     * @return the logging level of the logger
+     */
+    public int getMessageOutputLevel() {
+        return msgOutputLevel;
+    }
+
+    /**
+     * Set the output stream to which logging output is sent when operating
+     * as a logger.
+     *
+     * @param output the output PrintStream.
+     */
+    public void setOutputPrintStream(PrintStream output) {
+        this.outStream = new PrintStream(output, true);
+    }
+
+    /**
+     * Ignore emacs mode, as it has no meaning in XML format
+     *
+     * @param emacsMode true if logger should produce emacs compatible
+     *        output
+     */
+    public void setEmacsMode(boolean emacsMode) {
+    }
+
+    /**
+     * Ignore error print stream. All output will be written to
+     * either the XML log file or the PrintStream provided to
+     * setOutputPrintStream
+     *
+     * @param err the stream we are going to ignore.
+     */
+    public void setErrorPrintStream(PrintStream err) {
+    }
+
+    /**
+     * XML written by a single thread that hasn't been written to the
+     * log file, yet, together with the elements that are still open.
+     */
+    private final class Fragment {
+        private final int baseDepth;
+        private final StringWriter buffer = new StringWriter();
+        private final Deque<String> tags = new ArrayDeque<String>();
+        private final Deque<Long> startTimes = new ArrayDeque<Long>();
+
+        private Fragment(final int baseDepth) {
+            this.baseDepth = baseDepth;
+        }
+
+        private int depth() {
+            return tags.size();
+        }
+
+        private void start(final String tag, final String name, final String location) {
+            indent();
+            buffer.write('<');
+            buffer.write(tag);
+            if (name != null) {
+                attribute(NAME_ATTR, name);
+            }
+            if (location != null) {
+                attribute(LOCATION_ATTR, location);
+            }
+            buffer.write(">\n");
+            tags.push(tag);
+            startTimes.push(Long.valueOf(System.currentTimeMillis()));
+        }
+
+        private void end(final Throwable error) {
+            final long time = System.currentTimeMillis() - startTimes.pop().longValue();
+            if (error != null) {
+                stackTrace(error);
+            }
+            indent();
+            buffer.write('<');
+            buffer.write(FINISHED_TAG);
+            attribute(TIME_ATTR, DateUtils.formatElapsedTime(time));
+            if (error != null) {
+                attribute(ERROR_ATTR, error.toString());
+            }
+            buffer.write(" />\n");
+            final String tag = tags.pop();
+            indent();
+            buffer.write("</");
+            buffer.write(tag);
+            buffer.write(">\n");
+        }
+
+        private void message(final String priority, final String text, final Throwable ex) {
+            if (ex != null) {
+                stackTrace(ex);
+            }
+            indent();
+            buffer.write('<');
+            buffer.write(MESSAGE_TAG);
+            attribute(PRIORITY_ATTR, priority);
+            buffer.write("><![CDATA[");
+            cdata(text);
+            buffer.write("]]></");
+            buffer.write(MESSAGE_TAG);
+            buffer.write(">\n");
+        }
+
+        private void stackTrace(final Throwable t) {
+            indent();
+            buffer.write('<');
+            buffer.write(STACKTRACE_TAG);
+            buffer.write("><![CDATA[");
+            cdata(StringUtils.getStackTrace(t));
+            buffer.write("]]></");
+            buffer.write(STACKTRACE_TAG);
+            buffer.write(">\n");
+        }
+
+        private void attribute(final String name, final String value) {
+            buffer.write(' ');
+            buffer.write(name);
+            buffer.write("=\"");
+            buffer.write(xmlWriter.encodeAttributeValue(value));
+            buffer.write('"');
+        }
+
+        private void cdata(final String text) {
+            try {
+                xmlWriter.encodedata(buffer, String.valueOf(text));
+            } catch (final IOException e) {
+                // StringWriter doesn't throw
+                throw new BuildException(e);
+            }
+        }
+
+        private void indent() {
+            for (int i = baseDepth + depth(); i > 0; i--) {
+                buffer.write(INDENT);
+            }
+        }
+
+        /** Adds the contents of a fragment without open elements. */
+        private void append(final Fragment f) {
+            buffer.write(f.buffer.toString());
+        }
+
+        private void writeTo(final Writer w) throws IOException {
+            final StringBuffer sb = buffer.getBuffer();
+            if (sb.length() > 0) {
+                w.write(sb.toString());
+                sb.setLength(0);
+            }
+        }
+    }
+}
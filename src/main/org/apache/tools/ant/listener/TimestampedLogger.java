@@ -51,4 +51,15 @@ public class TimestampedLogger extends DefaultLogger {
         return super.getBuildSuccessfulMessage() + SPACER + getTimestamp();
     }
 
+    /**
+     * Enabled, only the build finished message differs from the
+     * default logger.
+     *
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean isLevelFilteringEnabled() {
+        return true;
+    }
+
 }
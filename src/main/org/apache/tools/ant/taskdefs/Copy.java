@@ -40,6 +40,7 @@ import org.apache.tools.ant.types.Mapper;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
 import org.apache.tools.ant.types.ResourceFactory;
+import org.apache.tools.ant.types.ScanCache;
 import org.apache.tools.ant.types.resources.FileProvider;
 import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.util.FileNameMapper;
@@ -596,6 +597,7 @@ public class Copy extends Task {
                 }
             }
         } finally {
+            ScanCache.invalidate(destDir != null ? destDir : destFile);
             // clean up again, so this instance can be used a second
             // time
             singleResource = null;
@@ -627,7 +629,7 @@ public class Copy extends Task {
                         > destFile.lastModified())) {
                     fileCopyMap.put(file.getAbsolutePath(),
                                     new String[] {destFile.getAbsolutePath()});
-                } else {
+                } else if (isLoggable(Project.MSG_VERBOSE)) {
                     log(file + " omitted as " + destFile
                         + " is up to date.", Project.MSG_VERBOSE);
                 }
@@ -878,7 +880,9 @@ public class Copy extends Task {
                         continue;
                     }
                     try {
-                        log("Copying " + fromFile + " to " + toFile, verbosity);
+                        if (isLoggable(verbosity)) {
+                            log("Copying " + fromFile + " to " + toFile, verbosity);
+                        }
 
                         final FilterSetCollection executionFilters =
                             new FilterSetCollection();
@@ -956,8 +960,10 @@ public class Copy extends Task {
                 final Resource fromResource = e.getKey();
                 for (final String toFile : e.getValue()) {
                     try {
-                        log("Copying " + fromResource + " to " + toFile,
-                            verbosity);
+                        if (isLoggable(verbosity)) {
+                            log("Copying " + fromResource + " to " + toFile,
+                                verbosity);
+                        }
 
                         final FilterSetCollection executionFilters = new FilterSetCollection();
                         if (filtering) {
@@ -1066,6 +1072,14 @@ public class Copy extends Task {
         return mapper;
     }
 
+    /**
+     * Whether a message of the given priority would be logged, used
+     * to avoid building per-file messages nobody listens to.
+     */
+    private boolean isLoggable(final int priority) {
+        return getProject() == null || getProject().isLoggable(priority);
+    }
+
     /**
      * Handle getMessage() for exceptions.
      * @param ex the exception to handle
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 import java.util.Vector;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Metrics;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.taskdefs.condition.Os;
@@ -423,7 +424,9 @@ public class Execute {
         CommandLauncher vmLauncher = CommandLauncher.getVMLauncher(project);
         CommandLauncher launcher = (useVM && vmLauncher != null)
             ? vmLauncher : CommandLauncher.getShellLauncher(project);
-        return launcher.exec(project, command, env, dir);
+        final Process process = launcher.exec(project, command, env, dir);
+        Metrics.PROCESSES_LAUNCHED.increment();
+        return process;
     }
 
     /**
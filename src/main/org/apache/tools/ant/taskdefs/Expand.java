@@ -19,16 +19,32 @@
 package org.apache.tools.ant.taskdefs;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -69,6 +85,8 @@ public class Expand extends Task {
     private boolean failOnEmptyArchive = false;
     private boolean stripAbsolutePathSpec = false;
     private boolean scanForUnicodeExtraFields = true;
+    private int threads = 1;
+    private boolean incremental = false;
 
     public static final String NATIVE_ENCODING = "native-encoding";
 
@@ -132,6 +150,11 @@ public class Expand extends Task {
                 "Dest attribute must be specified");
         }
 
+        if (threads < 1) {
+            throw new BuildException("threads must be a positive number",
+                                     getLocation());
+        }
+
         if (dest.exists() && !dest.isDirectory()) {
             throw new BuildException("Dest must be a directory.", getLocation());
         }
@@ -158,6 +181,11 @@ public class Expand extends Task {
             if (fp != null) {
                 expandFile(FILE_UTILS, fp.getFile(), dest);
             } else {
+                if (threads > 1 || incremental) {
+                    log("Expanding " + r.getName() + " with a single thread and"
+                        + " not incrementally as it is not a file",
+                        Project.MSG_VERBOSE);
+                }
                 expandResource(r, dest);
             }
         }
@@ -180,8 +208,34 @@ public class Expand extends Task {
                     + " as the file does not exist",
                     getLocation());
         }
+        boolean inPasses = threads > 1 || incremental;
+        if (inPasses && overridesExtractFile()) {
+            log(getClass().getName() + " overrides extractFile, expanding "
+                + srcF + " with a single thread and not incrementally",
+                Project.MSG_VERBOSE);
+            inPasses = false;
+        }
         try {
+            ExpandMarker marker = null;
+            if (inPasses && incremental) {
+                marker = new ExpandMarker(srcF, dir, getSettings(mapper));
+                try {
+                    marker.load();
+                } catch (IOException ex) {
+                    log("Ignoring " + marker.getFile() + ": " + ex,
+                        Project.MSG_VERBOSE);
+                }
+                if (marker.isArchiveUnchanged()) {
+                    log("Skipping " + srcF + " as it hasn't changed since it"
+                        + " has been expanded", Project.MSG_VERBOSE);
+                    return;
+                }
+            }
             zf = new ZipFile(srcF, encoding, scanForUnicodeExtraFields);
+            if (inPasses) {
+                expandInPasses(fileUtils, srcF, dir, zf, mapper, marker);
+                return;
+            }
             boolean empty = true;
             Enumeration<ZipEntry> e = zf.getEntries();
             while (e.hasMoreElements()) {
@@ -212,6 +266,245 @@ public class Expand extends Task {
         }
     }
 
+    /**
+     * Whether a subclass overrides {@link #extractFile extractFile},
+     * concurrent and incremental expansion don't use it.
+     */
+    private boolean overridesExtractFile() {
+        for (Class<?> c = getClass(); c != Expand.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("extractFile", FileUtils.class, File.class,
+                                    File.class, InputStream.class, String.class,
+                                    Date.class, boolean.class,
+                                    FileNameMapper.class);
+                return true;
+            } catch (NoSuchMethodException ex) {
+                // look at the superclass
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates all directories in a single pass and then inflates the
+     * files using up to <code>threads</code> threads, each additional
+     * thread reading from its own ZipFile instance.
+     *
+     * <p>Patternsets, mapper and the overwrite check are applied
+     * before any file is written.  If several entries map to the same
+     * file, only the last one is extracted - which is the one that
+     * would win in sequential mode.</p>
+     *
+     * @param marker the files expanded by the last run, null unless
+     * incremental is true.
+     */
+    private void expandInPasses(FileUtils fileUtils, File srcF, File dir,
+                                ZipFile zf, FileNameMapper mapper,
+                                ExpandMarker marker)
+        throws IOException {
+        EntryFilter filter = patternsets.isEmpty() ? null : new EntryFilter();
+        List<ZipEntry> entries = new ArrayList<ZipEntry>();
+        Map<File, Integer> targets = new LinkedHashMap<File, Integer>();
+        Set<File> createdDirs = new HashSet<File>();
+        // whether every selected entry can be found in the marker
+        boolean complete = true;
+        boolean empty = true;
+        int index = 0;
+        for (Enumeration<ZipEntry> e = zf.getEntries(); e.hasMoreElements();
+             index++) {
+            empty = false;
+            ZipEntry ze = e.nextElement();
+            entries.add(ze);
+            log("extracting " + ze.getName(), Project.MSG_DEBUG);
+            Date entryDate = new Date(ze.getTime());
+            File f = getTargetFile(fileUtils, dir, ze.getName(), entryDate,
+                                   mapper, filter);
+            if (f == null) {
+                continue;
+            }
+            if (!ze.isDirectory()) {
+                targets.remove(f);
+                if (marker != null && marker.isUpToDate(f, ze)) {
+                    log("Skipping " + f + " as it is unchanged",
+                        Project.MSG_DEBUG);
+                    continue;
+                }
+            }
+            if (isSkippedAsUpToDate(f, ze.getName(), entryDate)) {
+                // the marker doesn't know whether the file is
+                // the one inside the archive
+                complete = false;
+                continue;
+            }
+            if (ze.isDirectory()) {
+                mkdirs(f, createdDirs);
+                writeEntry(fileUtils, f, null, entryDate, true);
+                if (marker != null) {
+                    complete &= marker.recordDirectory(f);
+                }
+            } else {
+                // create intermediary directories - sometimes zip don't add them
+                mkdirs(f.getParentFile(), createdDirs);
+                targets.put(f, Integer.valueOf(index));
+            }
+        }
+        if (empty && getFailOnEmptyArchive()) {
+            throw new BuildException("archive '" + srcF + "' is empty");
+        }
+        if (marker != null && !targets.isEmpty()) {
+            // don't trust the old marker if extraction fails midway
+            marker.delete();
+        }
+        Set<File> written = extractConcurrently(fileUtils, srcF, zf, entries,
+                                                targets);
+        if (marker != null) {
+            for (Map.Entry<File, Integer> t : targets.entrySet()) {
+                complete &= written.contains(t.getKey())
+                    && marker.record(t.getKey(),
+                                     entries.get(t.getValue().intValue()));
+            }
+            if (complete) {
+                try {
+                    marker.store();
+                } catch (IOException ex) {
+                    log("Failed to write " + marker.getFile() + ": " + ex,
+                        Project.MSG_WARN);
+                }
+            } else {
+                log("Not writing " + marker.getFile() + " as not all"
+                    + " entries have been expanded", Project.MSG_VERBOSE);
+                marker.delete();
+            }
+        }
+        log("expand complete", Project.MSG_VERBOSE);
+    }
+
+    /**
+     * Everything but the archive itself that affects which files an
+     * archive is expanded to.
+     *
+     * @return null if the mapper makes this impossible to tell.
+     */
+    private String getSettings(FileNameMapper mapper) {
+        if (!(mapper instanceof IdentityMapper)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(encoding).append(',').append(stripAbsolutePathSpec)
+            .append(',').append(scanForUnicodeExtraFields);
+        if (!patternsets.isEmpty()) {
+            EntryFilter filter = new EntryFilter();
+            sb.append(',').append(new TreeSet<String>(filter.includePatterns))
+                .append(',').append(new TreeSet<String>(filter.excludePatterns));
+        }
+        return sb.toString();
+    }
+
+    private static void mkdirs(File d, Set<File> createdDirs) {
+        if (d != null && createdDirs.add(d)) {
+            d.mkdirs();
+        }
+    }
+
+    /**
+     * Writes the entries with the given indices to their target files.
+     *
+     * @return the files that have been written successfully.
+     */
+    private Set<File> extractConcurrently(final FileUtils fileUtils,
+                                          final File srcF, ZipFile zf,
+                                          List<ZipEntry> entries,
+                                          Map<File, Integer> targets)
+        throws IOException {
+        final List<Map.Entry<File, Integer>> work =
+            new ArrayList<Map.Entry<File, Integer>>(targets.entrySet());
+        final Set<File> written =
+            Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+        final AtomicInteger next = new AtomicInteger();
+        final int workers = Math.min(threads, work.size());
+        if (workers <= 1) {
+            extractEntries(fileUtils, zf, entries, work, next, written);
+            return written;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                        public Void call() throws IOException {
+                            try {
+                                extractInOwnZipFile(fileUtils, srcF, work,
+                                                    next, written);
+                            } catch (IOException | RuntimeException ex) {
+                                // make the other workers stop early
+                                next.set(work.size());
+                                throw ex;
+                            }
+                            return null;
+                        }
+                    }));
+            }
+            for (Future<Void> f : futures) {
+                get(f);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return written;
+    }
+
+    private void extractInOwnZipFile(FileUtils fileUtils, File srcF,
+                                     List<Map.Entry<File, Integer>> work,
+                                     AtomicInteger next, Set<File> written)
+        throws IOException {
+        ZipFile zf = new ZipFile(srcF, encoding, scanForUnicodeExtraFields);
+        try {
+            extractEntries(fileUtils, zf, Collections.list(zf.getEntries()),
+                           work, next, written);
+        } finally {
+            ZipFile.closeQuietly(zf);
+        }
+    }
+
+    private void extractEntries(FileUtils fileUtils, ZipFile zf,
+                                List<ZipEntry> entries,
+                                List<Map.Entry<File, Integer>> work,
+                                AtomicInteger next, Set<File> written)
+        throws IOException {
+        for (int i = next.getAndIncrement(); i < work.size();
+             i = next.getAndIncrement()) {
+            Map.Entry<File, Integer> w = work.get(i);
+            ZipEntry ze = entries.get(w.getValue().intValue());
+            InputStream is = null;
+            try {
+                if (writeEntry(fileUtils, w.getKey(), is = zf.getInputStream(ze),
+                               new Date(ze.getTime()), false)) {
+                    written.add(w.getKey());
+                }
+            } finally {
+                FileUtils.close(is);
+            }
+        }
+    }
+
+    private static void get(Future<Void> f) throws IOException {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException(e);
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new BuildException(t);
+        }
+    }
+
     /**
      * This method is to be overridden by extending unarchival tasks.
      *
@@ -256,6 +549,31 @@ public class Expand extends Task {
                                boolean isDirectory, FileNameMapper mapper)
                                throws IOException {
 
+        File f = getTargetFile(fileUtils, dir, entryName, entryDate, mapper,
+                               null);
+        if (f == null || isSkippedAsUpToDate(f, entryName, entryDate)) {
+            return;
+        }
+        // create intermediary directories - sometimes zip don't add them
+        File dirF = f.getParentFile();
+        if (dirF != null) {
+            dirF.mkdirs();
+        }
+        writeEntry(fileUtils, f, compressedInputStream, entryDate, isDirectory);
+    }
+    // CheckStyle:ParameterNumberCheck ON
+
+    /**
+     * Applies patternsets and mapper to an entry.
+     *
+     * @param filter the patternsets to use, will be created if null
+     * and there are any patternsets.
+     * @return the file to extract the entry to or null if the entry
+     * is to be skipped.
+     */
+    private File getTargetFile(FileUtils fileUtils, File dir, String entryName,
+                               Date entryDate, FileNameMapper mapper,
+                               EntryFilter filter) {
         if (stripAbsolutePathSpec && entryName.length() > 0
             && (entryName.charAt(0) == File.separatorChar
                 || entryName.charAt(0) == '/'
@@ -266,12 +584,251 @@ public class Expand extends Task {
         }
 
         if (patternsets != null && patternsets.size() > 0) {
-            String name = entryName.replace('/', File.separatorChar)
-                .replace('\\', File.separatorChar);
+            if (filter == null) {
+                filter = new EntryFilter();
+            }
+            if (!filter.isIncluded(entryName)) {
+                //Do not process this file
+                log("skipping " + entryName
+                    + " as it is excluded or not included.",
+                    Project.MSG_VERBOSE);
+                return null;
+            }
+        }
+        String[] mappedNames = mapper.mapFileName(entryName);
+        if (mappedNames == null || mappedNames.length == 0) {
+            mappedNames = new String[] {entryName};
+        }
+        return fileUtils.resolveFile(dir, mappedNames[0]);
+    }
 
-            boolean included = false;
-            Set<String> includePatterns = new HashSet<String>();
-            Set<String> excludePatterns = new HashSet<String>();
+    /**
+     * Applies the overwrite check to the file of an entry.
+     *
+     * @return true if the entry is to be skipped.
+     */
+    private boolean isSkippedAsUpToDate(File f, String entryName,
+                                        Date entryDate) {
+        if (!overwrite && f.exists()
+            && f.lastModified() >= entryDate.getTime()) {
+            log("Skipping " + f + " as it is up-to-date",
+                Project.MSG_DEBUG);
+            return true;
+        }
+
+        log("expanding " + entryName + " to " + f,
+            Project.MSG_VERBOSE);
+        return false;
+    }
+
+    /**
+     * Creates the directory or writes the file of an entry.
+     *
+     * @return false if the file couldn't be written.
+     */
+    private boolean writeEntry(FileUtils fileUtils, File f,
+                            InputStream compressedInputStream,
+                            Date entryDate, boolean isDirectory)
+        throws IOException {
+        try {
+            if (isDirectory) {
+                f.mkdirs();
+            } else {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length = 0;
+                FileOutputStream fos = null;
+                try {
+                    fos = new FileOutputStream(f);
+
+                    while ((length =
+                            compressedInputStream.read(buffer)) >= 0) {
+                        fos.write(buffer, 0, length);
+                    }
+
+                    fos.close();
+                    fos = null;
+                } finally {
+                    FileUtils.close(fos);
+                }
+            }
+
+            fileUtils.setFileLastModified(f, entryDate.getTime());
+            return true;
+        } catch (FileNotFoundException ex) {
+            log("Unable to expand to file " + f.getPath(),
+                    ex,
+                    Project.MSG_WARN);
+            return false;
+        }
+    }
+
+    /**
+     * The marker file written in incremental mode.
+     *
+     * <p>It records the archive's path, size and timestamp and for
+     * every file expanded from it the CRC and size of the entry as
+     * well as the file's timestamp after it has been written.</p>
+     */
+    private static final class ExpandMarker {
+        private static final String DIRECTORY = "dir";
+        private static final String ARCHIVE = "archive";
+        private static final String SETTINGS = "settings";
+        private static final String ENTRY_PREFIX = "entry.";
+
+        private final File file;
+        private final String settings;
+        private Properties old = new Properties();
+        private final Properties current = new Properties();
+
+        ExpandMarker(File srcF, File dir, String settings) {
+            file = new File(dir, ".ant-unzip-" + srcF.getName() + ".properties");
+            this.settings = settings;
+            current.setProperty(ARCHIVE, srcF.getAbsolutePath() + ","
+                                + srcF.length() + "," + srcF.lastModified());
+            if (settings != null) {
+                current.setProperty(SETTINGS, settings);
+            }
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        void load() throws IOException {
+            if (!file.isFile()) {
+                return;
+            }
+            Properties p = new Properties();
+            InputStream in = new FileInputStream(file);
+            try {
+                p.load(in);
+            } finally {
+                FileUtils.close(in);
+            }
+            old = p;
+        }
+
+        /**
+         * Whether the archive and the settings are the same as last
+         * time and none of the expanded files has been touched since.
+         */
+        boolean isArchiveUnchanged() {
+            if (settings == null
+                || !current.getProperty(ARCHIVE).equals(old.getProperty(ARCHIVE))
+                || !settings.equals(old.getProperty(SETTINGS))) {
+                return false;
+            }
+            for (String key : old.stringPropertyNames()) {
+                if (key.startsWith(ENTRY_PREFIX)) {
+                    File f = new File(key.substring(ENTRY_PREFIX.length()));
+                    if (DIRECTORY.equals(old.getProperty(key))) {
+                        if (!f.isDirectory()) {
+                            return false;
+                        }
+                        continue;
+                    }
+                    long[] r = parse(old.getProperty(key));
+                    if (r == null || !isUnmodified(f, r)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Whether the file has been expanded from an entry with the
+         * same CRC and size and not been touched since.
+         */
+        boolean isUpToDate(File f, ZipEntry ze) {
+            String key = ENTRY_PREFIX + f.getAbsolutePath();
+            String value = old.getProperty(key);
+            long[] r = parse(value);
+            if (r == null || ze.getCrc() == -1 || r[0] != ze.getCrc()
+                || r[1] != ze.getSize() || !isUnmodified(f, r)) {
+                return false;
+            }
+            current.setProperty(key, value);
+            return true;
+        }
+
+        /**
+         * @return false if the entry can't be recorded.
+         */
+        boolean record(File f, ZipEntry ze) {
+            if (ze.getCrc() == -1 || !f.isFile()) {
+                return false;
+            }
+            current.setProperty(ENTRY_PREFIX + f.getAbsolutePath(),
+                                ze.getCrc() + "," + ze.getSize() + ","
+                                + f.lastModified());
+            return true;
+        }
+
+        /**
+         * @return false if the directory doesn't exist.
+         */
+        boolean recordDirectory(File f) {
+            if (!f.isDirectory()) {
+                return false;
+            }
+            current.setProperty(ENTRY_PREFIX + f.getAbsolutePath(), DIRECTORY);
+            return true;
+        }
+
+        /**
+         * Removes the marker file, the next call to store will write
+         * it in any case.
+         */
+        void delete() {
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+            old = new Properties();
+        }
+
+        void store() throws IOException {
+            if (current.equals(old)) {
+                return;
+            }
+            OutputStream out = new FileOutputStream(file);
+            try {
+                current.store(out, "Files expanded by Ant");
+            } finally {
+                FileUtils.close(out);
+            }
+        }
+
+        private static boolean isUnmodified(File f, long[] r) {
+            return f.isFile() && f.length() == r[1] && f.lastModified() == r[2];
+        }
+
+        private static long[] parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split(",");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new long[] {Long.parseLong(parts[0]),
+                                   Long.parseLong(parts[1]),
+                                   Long.parseLong(parts[2])};
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The include and exclude patterns of all patternsets.
+     */
+    private class EntryFilter {
+        private final Set<String> includePatterns = new HashSet<String>();
+        private final Set<String> excludePatterns = new HashSet<String>();
+
+        EntryFilter() {
             final int size = patternsets.size();
             for (int v = 0; v < size; v++) {
                 PatternSet p = patternsets.elementAt(v);
@@ -303,7 +860,13 @@ public class Expand extends Task {
                     }
                 }
             }
+        }
+
+        boolean isIncluded(String entryName) {
+            String name = entryName.replace('/', File.separatorChar)
+                .replace('\\', File.separatorChar);
 
+            boolean included = false;
             for (Iterator<String> iter = includePatterns.iterator();
                  !included && iter.hasNext();) {
                 String pattern = iter.next();
@@ -315,66 +878,9 @@ public class Expand extends Task {
                 String pattern = iter.next();
                 included = !SelectorUtils.matchPath(pattern, name);
             }
-
-            if (!included) {
-                //Do not process this file
-                log("skipping " + entryName
-                    + " as it is excluded or not included.",
-                    Project.MSG_VERBOSE);
-                return;
-            }
-        }
-        String[] mappedNames = mapper.mapFileName(entryName);
-        if (mappedNames == null || mappedNames.length == 0) {
-            mappedNames = new String[] {entryName};
-        }
-        File f = fileUtils.resolveFile(dir, mappedNames[0]);
-        try {
-            if (!overwrite && f.exists()
-                && f.lastModified() >= entryDate.getTime()) {
-                log("Skipping " + f + " as it is up-to-date",
-                    Project.MSG_DEBUG);
-                return;
-            }
-
-            log("expanding " + entryName + " to " + f,
-                Project.MSG_VERBOSE);
-            // create intermediary directories - sometimes zip don't add them
-            File dirF = f.getParentFile();
-            if (dirF != null) {
-                dirF.mkdirs();
-            }
-
-            if (isDirectory) {
-                f.mkdirs();
-            } else {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int length = 0;
-                FileOutputStream fos = null;
-                try {
-                    fos = new FileOutputStream(f);
-
-                    while ((length =
-                            compressedInputStream.read(buffer)) >= 0) {
-                        fos.write(buffer, 0, length);
-                    }
-
-                    fos.close();
-                    fos = null;
-                } finally {
-                    FileUtils.close(fos);
-                }
-            }
-
-            fileUtils.setFileLastModified(f, entryDate.getTime());
-        } catch (FileNotFoundException ex) {
-            log("Unable to expand to file " + f.getPath(),
-                    ex,
-                    Project.MSG_WARN);
+            return included;
         }
-
     }
-    // CheckStyle:ParameterNumberCheck ON
 
     /**
      * Set the destination directory. File will be unzipped into the
@@ -386,6 +892,30 @@ public class Expand extends Task {
         this.dest = d;
     }
 
+    /**
+     * Number of threads used to inflate the entries of zip archives.
+     * Defaults to 1.  The untar task doesn't support this attribute.
+     *
+     * @param threads the number of threads, must be positive.
+     * @since Ant 1.10.0
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Whether to remember the files expanded from a zip archive in a
+     * marker file inside the destination directory and only extract
+     * entries whose CRC or size changed - or whose file has been
+     * modified - on later runs.  Defaults to false.
+     *
+     * @param b boolean
+     * @since Ant 1.10.0
+     */
+    public void setIncremental(boolean b) {
+        incremental = b;
+    }
+
     /**
      * Set the path to zip-file.
      *
@@ -217,7 +217,14 @@ public class Java extends Task {
         try {
             if (fork) {
                 if (!spawn) {
-                    return fork(commandLine.getCommandline());
+                    boolean exited = false;
+                    try {
+                        int rc = fork(commandLine.getCommandline());
+                        exited = true;
+                        return rc;
+                    } finally {
+                        commandLine.completeSharedArchive(exited);
+                    }
                 } else {
                     spawn(commandLine.getCommandline());
                     return 0;
@@ -426,6 +433,18 @@ public class Java extends Task {
         getCommandLine().setCloneVm(cloneVm);
     }
 
+    /**
+     * Directory in which class data sharing archives for the forked VM
+     * are created and reused.
+     *
+     * <p>Doesn't have any effect unless fork is true.</p>
+     * @param dir the directory holding the archives.
+     * @since Ant 1.10.0
+     */
+    public void setSharedArchiveDir(File dir) {
+        getCommandLine().setSharedArchiveDir(dir);
+    }
+
     /**
      * Add a command-line argument.
      *
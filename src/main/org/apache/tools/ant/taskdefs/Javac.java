@@ -40,6 +40,7 @@ import org.apache.tools.ant.taskdefs.compilers.CompilerAdapterExtension;
 import org.apache.tools.ant.taskdefs.compilers.CompilerAdapterFactory;
 import org.apache.tools.ant.types.Path;
 import org.apache.tools.ant.types.Reference;
+import org.apache.tools.ant.types.ScanCache;
 import org.apache.tools.ant.util.FileUtils;
 import org.apache.tools.ant.util.GlobPatternMapper;
 import org.apache.tools.ant.util.JavaEnvUtils;
@@ -1341,7 +1342,13 @@ public class Javac extends MatchingTask {
             adapter.setJavac(this);
 
             // finally, lets execute the compiler!!
-            if (adapter.execute()) {
+            final boolean success;
+            try {
+                success = adapter.execute();
+            } finally {
+                invalidateScanCache();
+            }
+            if (success) {
                 // Success
                 if (createMissingPackageInfoClass) {
                     try {
@@ -1370,6 +1377,21 @@ public class Javac extends MatchingTask {
         }
     }
 
+    /**
+     * Signals that the directories the compiler writes to have been
+     * modified.
+     */
+    private void invalidateScanCache() {
+        if (destDir != null) {
+            ScanCache.invalidate(destDir);
+        } else if (src != null) {
+            final String[] srcDirs = src.list();
+            for (int i = 0; i < srcDirs.length; i++) {
+                ScanCache.invalidate(getProject().resolveFile(srcDirs[i]));
+            }
+        }
+    }
+
     /**
      * Adds an "compiler" attribute to Commandline$Attribute used to
      * filter command line attributes based on the current
@@ -23,6 +23,7 @@ import java.io.File;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.ScanCache;
 
 /**
  * Creates a given directory.
@@ -59,6 +60,7 @@ public class Mkdir extends Task {
 
         if (!dir.exists()) {
             boolean result = mkdirs(dir);
+            ScanCache.invalidate(dir);
             if (!result) {
                 if (dir.exists()) {
                     log("A different process or task has already created "
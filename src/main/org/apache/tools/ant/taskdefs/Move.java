@@ -28,6 +28,8 @@ import org.apache.tools.ant.taskdefs.condition.Os;
 import org.apache.tools.ant.types.FileSet;
 import org.apache.tools.ant.types.FilterSet;
 import org.apache.tools.ant.types.FilterSetCollection;
+import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.ScanCache;
 
 /**
  * Moves a file or directory to a new file or directory.
@@ -78,6 +80,24 @@ public class Move extends Copy {
         performGc = b;
     }
 
+    /**
+     * Performs the move.
+     * @throws BuildException if an error occurs.
+     */
+    public void execute() throws BuildException {
+        try {
+            super.execute();
+        } finally {
+            // the sources are gone, not only the destination changed
+            ScanCache.invalidate(file);
+            for (ResourceCollection rc : rcs) {
+                if (rc instanceof FileSet) {
+                    ScanCache.invalidate(((FileSet) rc).getDir(getProject()));
+                }
+            }
+        }
+    }
+
     /** {@inheritDoc}. */
     protected void validateAttributes() throws BuildException {
         if (file != null && file.isDirectory()) {
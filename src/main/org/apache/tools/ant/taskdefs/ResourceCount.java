@@ -93,6 +93,10 @@ public class ResourceCount extends Task implements Condition {
         if (count == null) {
             throw new BuildException(COUNT_REQUIRED);
         }
+        if (count.intValue() == 0) {
+            // no need to count all resources if there is one
+            return when.evaluate(rc.isEmpty() ? 0 : 1);
+        }
         return when.evaluate(new Integer(rc.size()).compareTo(count));
     }
 
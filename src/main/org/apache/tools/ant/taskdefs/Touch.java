@@ -35,6 +35,7 @@ import org.apache.tools.ant.types.FileSet;
 import org.apache.tools.ant.types.Mapper;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.ScanCache;
 import org.apache.tools.ant.types.resources.FileProvider;
 import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Touchable;
@@ -366,6 +367,7 @@ public class Touch extends Task {
                 ((verbose) ? Project.MSG_INFO : Project.MSG_VERBOSE));
             try {
                 FILE_UTILS.createNewFile(file, mkdirs);
+                ScanCache.invalidate(file);
             } catch (IOException ioe) {
                 throw new BuildException("Could not create " + file, ioe,
                                          getLocation());
@@ -89,6 +89,28 @@ public class Untar extends Expand {
                                  + " attribute", getLocation());
     }
 
+    /**
+     * Tar archives can only be read sequentially.
+     *
+     * @since Ant 1.10.0
+     */
+    public void setThreads(int threads) {
+        throw new BuildException("The " + getTaskName()
+                                 + " task doesn't support the threads"
+                                 + " attribute", getLocation());
+    }
+
+    /**
+     * Tar archives don't provide CRCs of their entries.
+     *
+     * @since Ant 1.10.0
+     */
+    public void setIncremental(boolean b) {
+        throw new BuildException("The " + getTaskName()
+                                 + " task doesn't support the incremental"
+                                 + " attribute", getLocation());
+    }
+
     /**
      * @see Expand#expandFile(FileUtils, File, File)
      */
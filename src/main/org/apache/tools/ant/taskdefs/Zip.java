@@ -40,6 +40,7 @@ import java.util.zip.CRC32;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.FileScanner;
+import org.apache.tools.ant.Metrics;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.types.ArchiveFileSet;
 import org.apache.tools.ant.types.EnumeratedAttribute;
@@ -1732,6 +1733,7 @@ public class Zip extends MatchingTask {
             }
 
             zOut.putNextEntry(ze);
+            Metrics.ZIP_ENTRIES_WRITTEN.increment();
         }
     }
 
@@ -1852,6 +1854,7 @@ public class Zip extends MatchingTask {
             }
 
             zOut.putNextEntry(ze);
+            Metrics.ZIP_ENTRIES_WRITTEN.increment();
 
             final byte[] buffer = new byte[BUFFER_SIZE];
             int count = 0;
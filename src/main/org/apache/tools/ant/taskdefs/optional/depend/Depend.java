@@ -17,12 +17,15 @@
  */
 package org.apache.tools.ant.taskdefs.optional.depend;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -38,7 +41,6 @@ import org.apache.tools.ant.taskdefs.rmic.WLRmic;
 import org.apache.tools.ant.types.Path;
 import org.apache.tools.ant.types.Reference;
 import org.apache.tools.ant.util.FileUtils;
-import org.apache.tools.ant.util.depend.DependencyAnalyzer;
 
 /**
  * Generates a dependency file for a given set of classes.
@@ -63,6 +65,14 @@ public class Depend extends MatchingTask {
 
         /** if user has been warned about this file not having a source file */
         private boolean isUserWarned = false;
+
+        /**
+         * A cheap fingerprint of the class file used to decide whether
+         * the cached dependency information is still valid.
+         */
+        private String getFingerprint() {
+            return absoluteFile.lastModified() + ":" + absoluteFile.length();
+        }
     }
 
     /** The path where source files exist */
@@ -120,6 +130,8 @@ public class Depend extends MatchingTask {
     private static final String CACHE_FILE_NAME = "dependencies.txt";
     /** String Used to separate classnames in the dependency file */
     private static final String CLASSNAME_PREPEND = "||:";
+    /** String used to mark the fingerprint of a class in the dependency file */
+    private static final String FINGERPRINT_PREPEND = "||#";
 
     /**
      * Set the classpath to be used for this dependency check.
@@ -179,10 +191,16 @@ public class Depend extends MatchingTask {
     /**
      * Read the dependencies from cache file
      *
+     * @param depFile the dependency cache file
+     * @param fingerprints a map which is populated with the fingerprints
+     *      of the class files as they have been when the cache was written.
+     *      Caches written by older versions of Ant don't contain them.
      * @return a collection of class dependencies
      * @exception IOException if the dependency file cannot be read
      */
-    private Hashtable readCachedDependencies(File depFile) throws IOException {
+    private Hashtable readCachedDependencies(File depFile,
+                                             Hashtable fingerprints)
+        throws IOException {
         Hashtable dependencyMap = new Hashtable();
 
         BufferedReader in = null;
@@ -197,6 +215,9 @@ public class Depend extends MatchingTask {
                     dependencyList = new Vector();
                     className = line.substring(prependLength);
                     dependencyMap.put(className, dependencyList);
+                } else if (line.startsWith(FINGERPRINT_PREPEND)) {
+                    fingerprints.put(className,
+                                     line.substring(FINGERPRINT_PREPEND.length()));
                 } else {
                     dependencyList.addElement(line);
                 }
@@ -212,9 +233,12 @@ public class Depend extends MatchingTask {
      * Write the dependencies to cache file
      *
      * @param dependencyMap the map of dependencies to be written out.
+     * @param fingerprints the fingerprints of the class files the
+     *      dependencies have been read from.
      * @exception IOException if the dependency file cannot be written out.
      */
-    private void writeCachedDependencies(Hashtable dependencyMap)
+    private void writeCachedDependencies(Hashtable dependencyMap,
+                                         Hashtable fingerprints)
         throws IOException {
         if (cache != null) {
             BufferedWriter pw = null;
@@ -229,6 +253,11 @@ public class Depend extends MatchingTask {
 
                     pw.write(CLASSNAME_PREPEND + className);
                     pw.newLine();
+                    Object fingerprint = fingerprints.get(className);
+                    if (fingerprint != null) {
+                        pw.write(FINGERPRINT_PREPEND + fingerprint);
+                        pw.newLine();
+                    }
 
                     Vector dependencyList
                         = (Vector) dependencyMap.get(className);
@@ -294,7 +323,10 @@ public class Depend extends MatchingTask {
      *                             classpath that each class depends upon.</li>
      * </ul>
      *
-     * If required, the dependencies are written to the cache.
+     * If required, the dependencies are written to the cache.  The cache
+     * keeps a fingerprint (timestamp and size) of every class file, only
+     * class files whose fingerprint has changed are parsed again and
+     * entries of class files which no longer exist are dropped.
      *
      * @exception IOException if either the dependencies cache or the class
      *      files cannot be read or written
@@ -304,7 +336,10 @@ public class Depend extends MatchingTask {
         classFileInfoMap = new Hashtable();
         boolean cacheDirty = false;
 
+        Hashtable cachedDependencyMap = new Hashtable();
+        Hashtable cachedFingerprints = new Hashtable();
         Hashtable dependencyMap = new Hashtable();
+        Hashtable fingerprints = new Hashtable();
         File cacheFile = null;
         boolean cacheFileExists = true;
         long cacheLastModified = Long.MAX_VALUE;
@@ -315,7 +350,8 @@ public class Depend extends MatchingTask {
             cacheFileExists = cacheFile.exists();
             cacheLastModified = cacheFile.lastModified();
             if (cacheFileExists) {
-                dependencyMap = readCachedDependencies(cacheFile);
+                cachedDependencyMap
+                    = readCachedDependencies(cacheFile, cachedFingerprints);
             }
         }
         Enumeration classfileEnum = getClassFiles(destPath).elements();
@@ -325,35 +361,33 @@ public class Depend extends MatchingTask {
             classFileInfoMap.put(info.className, info);
 
             Vector dependencyList = null;
+            String fingerprint = info.getFingerprint();
 
-            if (cache != null) {
+            if (cache != null && cacheFileExists) {
                 // try to read the dependency info from the map if it is
                 // not out of date
-                if (cacheFileExists
-                    && cacheLastModified > info.absoluteFile.lastModified()) {
-                    // depFile exists and is newer than the class file
-                    // need to get dependency list from the map.
-                    dependencyList = (Vector) dependencyMap.get(info.className);
+                Object cachedFingerprint = cachedFingerprints.get(info.className);
+                if (cachedFingerprint != null) {
+                    if (cachedFingerprint.equals(fingerprint)) {
+                        dependencyList
+                            = (Vector) cachedDependencyMap.get(info.className);
+                    }
+                } else if (cacheLastModified > info.absoluteFile.lastModified()) {
+                    // cache written without fingerprints and newer than
+                    // the class file, use it and upgrade the cache
+                    dependencyList
+                        = (Vector) cachedDependencyMap.get(info.className);
+                    cacheDirty = true;
                 }
             }
 
             if (dependencyList == null) {
                 // not cached - so need to read directly from the class file
-                DependencyAnalyzer analyzer = new AntAnalyzer();
-                analyzer.addRootClass(info.className);
-                analyzer.addClassPath(destPath);
-                analyzer.setClosure(false);
-                dependencyList = new Vector();
-                Enumeration depEnum = analyzer.getClassDependencies();
-                while (depEnum.hasMoreElements()) {
-                    Object o = depEnum.nextElement();
-                    dependencyList.addElement(o);
-                    log("Class " + info.className + " depends on " + o,
-                        Project.MSG_DEBUG);
-                }
+                dependencyList = readDependencies(info);
                 cacheDirty = true;
-                dependencyMap.put(info.className, dependencyList);
             }
+            dependencyMap.put(info.className, dependencyList);
+            fingerprints.put(info.className, fingerprint);
 
             // This class depends on each class in the dependency list. For each
             // one of those, add this class into their affected classes list
@@ -447,9 +481,44 @@ public class Depend extends MatchingTask {
         }
 
         // write the dependency cache to the disk
-        if (cache != null && cacheDirty) {
-            writeCachedDependencies(dependencyMap);
+        if (cache != null
+            && (cacheDirty || cachedDependencyMap.size() != dependencyMap.size())) {
+            writeCachedDependencies(dependencyMap, fingerprints);
+        }
+    }
+
+    /**
+     * Read the direct dependencies of a class from its class file.
+     *
+     * @param info the class to analyze
+     * @return the names of the classes the class depends upon, including
+     *      the class itself
+     */
+    private Vector readDependencies(ClassFileInfo info) {
+        Hashtable dependencies = new Hashtable();
+        dependencies.put(info.className, info.className);
+        InputStream inStream = null;
+        try {
+            inStream = new BufferedInputStream(
+                new FileInputStream(info.absoluteFile));
+            ClassFile classFile = new ClassFile();
+            classFile.read(inStream);
+            for (String dependency : classFile.getClassRefs()) {
+                dependencies.put(dependency, dependency);
+            }
+        } catch (IOException ioe) {
+            log("Unable to read " + info.absoluteFile + ": " + ioe.getMessage(),
+                Project.MSG_VERBOSE);
+        } finally {
+            FileUtils.close(inStream);
+        }
+
+        Vector dependencyList = new Vector(dependencies.keySet());
+        for (Enumeration e = dependencyList.elements(); e.hasMoreElements();) {
+            log("Class " + info.className + " depends on " + e.nextElement(),
+                Project.MSG_DEBUG);
         }
+        return dependencyList;
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.taskdefs.optional.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.Test;
+
+import org.apache.tools.ant.BuildException;
+
+/**
+ * <p>Records the time it took to run each test class so later runs
+ * can start the longest running classes first.</p>
+ *
+ * <p>The durations are appended to the file named by the magic
+ * property {@value #MAGIC_PROPERTY_DURATION_FILE}, which is looked up
+ * as System property first and as Ant property second.  The
+ * durationfile attribute of &lt;junit&gt; adds this formatter and sets
+ * the System property automatically.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public class DurationRecorder implements JUnitResultFormatter {
+
+    /**
+     * This is the name of a magic property ({@value}) pointing to the
+     * file holding the recorded durations.
+     */
+    public static final String MAGIC_PROPERTY_DURATION_FILE = "ant.junit.durationFile";
+
+    /** {@inheritDoc}. */
+    public void startTestSuite(final JUnitTest suite) {
+    }
+
+    /**
+     * Appends the run time of the suite to the duration file.
+     * @param suite the test suite
+     * @throws BuildException if the duration cannot be recorded.
+     */
+    public void endTestSuite(final JUnitTest suite) throws BuildException {
+        String location = System.getProperty(MAGIC_PROPERTY_DURATION_FILE);
+        final Properties props = suite.getProperties();
+        if (location == null && props != null) {
+            location = props.getProperty(MAGIC_PROPERTY_DURATION_FILE);
+        }
+        if (location == null) {
+            return;
+        }
+        try {
+            DurationStore.append(new File(location), suite.getName(), suite.getRunTime());
+        } catch (final IOException e) {
+            throw new BuildException("Unable to record duration of " + suite.getName(), e);
+        }
+    }
+
+    /** {@inheritDoc}. */
+    public void setOutput(final OutputStream out) {
+        // not used
+    }
+
+    /** {@inheritDoc}. */
+    public void setSystemOutput(final String out) {
+    }
+
+    /** {@inheritDoc}. */
+    public void setSystemError(final String err) {
+    }
+
+    /** {@inheritDoc}. */
+    public void addError(final Test test, final Throwable t) {
+    }
+
+    /** {@inheritDoc}. */
+    public void addFailure(final Test test, final AssertionFailedError t) {
+    }
+
+    /** {@inheritDoc}. */
+    public void endTest(final Test test) {
+    }
+
+    /** {@inheritDoc}. */
+    public void startTest(final Test test) {
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.taskdefs.optional.junit;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.tools.ant.util.FileUtils;
+
+/**
+ * Stores the time it took to run test classes in a text file with
+ * one <code>classname=milliseconds</code> line per run.
+ *
+ * <p>New durations are appended so several forked VMs can record
+ * their results at the same time, later lines win when the file is
+ * read.  Doesn't depend on JUnit so it can be used by the task as
+ * well as inside the test VM.</p>
+ *
+ * @since Ant 1.10.0
+ */
+final class DurationStore {
+
+    /** Rewrite the file once it holds more lines than this factor times the classes. */
+    private static final int COMPACT_FACTOR = 2;
+
+    private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
+
+    /** Utility class. */
+    private DurationStore() {
+    }
+
+    /**
+     * Reads the recorded durations and rewrites the file without
+     * outdated entries if it has grown too much.
+     *
+     * <p>The file is not rewritten if it has changed while it was
+     * read, so durations appended by concurrently running builds are
+     * not lost.  There still is a short window between the check and
+     * the rename, durations appended inside of it are dropped.</p>
+     *
+     * @param file the file holding the durations
+     * @return durations in milliseconds keyed by test class name,
+     * empty if the file doesn't exist
+     * @throws IOException if the file cannot be read or written
+     */
+    static Map<String, Long> load(final File file) throws IOException {
+        final Map<String, Long> durations = new TreeMap<String, Long>();
+        if (!file.isFile()) {
+            return durations;
+        }
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                 new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                final int eq = line.lastIndexOf('=');
+                if (eq > 0) {
+                    try {
+                        durations.put(line.substring(0, eq),
+                                      Long.valueOf(line.substring(eq + 1).trim()));
+                    } catch (final NumberFormatException ex) {
+                        // ignore broken line, likely a VM crashed while writing it
+                    }
+                }
+            }
+        }
+        if (lines > COMPACT_FACTOR * durations.size()) {
+            write(file, durations, length, lastModified);
+        }
+        return durations;
+    }
+
+    /**
+     * Records the duration of a single test class.
+     *
+     * @param file the file holding the durations
+     * @param testName the name of the test class
+     * @param millis the time it took to run the test class
+     * @throws IOException if the file cannot be written
+     */
+    static void append(final File file, final String testName, final long millis)
+        throws IOException {
+        final byte[] line = (testName + "=" + millis + "\n")
+            .getBytes(StandardCharsets.UTF_8);
+        // a single write of a short line to a file opened for
+        // appending doesn't get mixed up with the lines of other VMs
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(line);
+        }
+    }
+
+    private static void write(final File file, final Map<String, Long> durations,
+                              final long length, final long lastModified)
+        throws IOException {
+        final File tmp = FILE_UTILS.createTempFile("durations", ".tmp",
+                                                   file.getAbsoluteFile().getParentFile(),
+                                                   false, false);
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(tmp),
+                                               StandardCharsets.UTF_8)) {
+            for (final Map.Entry<String, Long> e : durations.entrySet()) {
+                w.write(e.getKey() + "=" + e.getValue() + "\n");
+            }
+        }
+        if (file.length() != length || file.lastModified() != lastModified) {
+            // somebody appended to the file, compact it next time
+            FILE_UTILS.tryHardToDelete(tmp);
+            return;
+        }
+        FILE_UTILS.rename(tmp, file);
+    }
+}
@@ -76,6 +76,12 @@ public class FormatterElement {
     /** xml formatter class */
     public static final String XML_FORMATTER_CLASS_NAME =
         "org.apache.tools.ant.taskdefs.optional.junit.XMLJUnitResultFormatter";
+    /**
+     * streaming xml formatter class
+     * @since Ant 1.10.0
+     */
+    public static final String STREAMING_XML_FORMATTER_CLASS_NAME =
+        "org.apache.tools.ant.taskdefs.optional.junit.StreamingXMLJUnitResultFormatter";
     /** brief formatter class */
     public static final String BRIEF_FORMATTER_CLASS_NAME =
         "org.apache.tools.ant.taskdefs.optional.junit.BriefJUnitResultFormatter";
@@ -85,6 +91,12 @@ public class FormatterElement {
     /** failure recorder class */
     public static final String FAILURE_RECORDER_CLASS_NAME =
         "org.apache.tools.ant.taskdefs.optional.junit.FailureRecorder";
+    /**
+     * duration recorder class
+     * @since Ant 1.10.0
+     */
+    public static final String DURATION_RECORDER_CLASS_NAME =
+        "org.apache.tools.ant.taskdefs.optional.junit.DurationRecorder";
 
     /**
      * <p> Quick way to use a standard formatter.
@@ -125,7 +137,8 @@ public class FormatterElement {
      */
     public void setClassname(String classname) {
         this.classname = classname;
-        if (XML_FORMATTER_CLASS_NAME.equals(classname)) {
+        if (XML_FORMATTER_CLASS_NAME.equals(classname)
+            || STREAMING_XML_FORMATTER_CLASS_NAME.equals(classname)) {
            setExtension(".xml");
         } else if (PLAIN_FORMATTER_CLASS_NAME.equals(classname)) {
            setExtension(".txt");
@@ -25,14 +25,22 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -160,6 +168,14 @@ public class JUnitTask extends Task {
     private boolean logFailedTests = true;
 
     private File tmpDir;
+
+    /** file holding the durations of earlier test runs */
+    private File durationFile;
+    /** formatter recording the durations, created on first use */
+    private FormatterElement durationRecorder;
+    /** durations of earlier test runs, null unless durationFile is set */
+    private Map<String, Long> testDurations;
+
     private AntClassLoader classLoader = null;
     private Permissions perm = null;
     private ForkMode forkMode = new ForkMode("perTest");
@@ -303,11 +319,14 @@ public class JUnitTask extends Task {
     /**
      * Set the behavior when {@link #setFork fork} fork has been enabled.
      *
-     * <p>Possible values are "once", "perTest" and "perBatch".  If
-     * set to "once", only a single Java VM will be forked for all
-     * tests, with "perTest" (the default) each test will run in a
-     * fresh Java VM and "perBatch" will run all tests from the same
-     * &lt;batchtest&gt; in the same Java VM.</p>
+     * <p>Possible values are "once", "perTest", "perBatch" and
+     * "perThread".  If set to "once", only a single Java VM will be
+     * forked for all tests, with "perTest" (the default) each test
+     * will run in a fresh Java VM and "perBatch" will run all tests
+     * from the same &lt;batchtest&gt; in the same Java VM.  With
+     * "perThread" one Java VM is forked per {@link #setThreads
+     * thread}, each of them asks for the next test as soon as it has
+     * finished the previous one.</p>
      *
      * <p>This attribute will be ignored if tests run in the same VM
      * as Ant.</p>
@@ -639,6 +658,22 @@ public class JUnitTask extends Task {
         this.logFailedTests = logFailedTests;
     }
 
+    /**
+     * File recording how long each test class took to run.
+     *
+     * <p>If set, the duration of every test class run is appended to
+     * this file and tests that are queued for parallel execution are
+     * started longest first based on the durations of earlier runs.
+     * Tests that have not been recorded, yet, are started before all
+     * others.</p>
+     *
+     * @param durationFile the file holding the durations
+     * @since Ant 1.10.0
+     */
+    public void setDurationFile(final File durationFile) {
+        this.durationFile = durationFile;
+    }
+
     /**
      * Assertions to enable in this program (if fork=true)
      * @since Ant 1.6
@@ -676,6 +711,18 @@ public class JUnitTask extends Task {
         getCommandline().setCloneVm(cloneVm);
     }
 
+    /**
+     * Directory in which class data sharing archives for the forked VMs
+     * are created and reused.
+     *
+     * <p>Doesn't have any effect unless fork is true.</p>
+     * @param dir the directory holding the archives.
+     * @since Ant 1.10.0
+     */
+    public void setSharedArchiveDir(final File dir) {
+        getCommandline().setSharedArchiveDir(dir);
+    }
+
     /**
      * Creates a new JUnitRunner and enables fork of a new Java VM.
      *
@@ -820,6 +867,7 @@ public class JUnitTask extends Task {
         checkMethodLists();
 
         setupJUnitDelegate();
+        setupDurationRecording();
 
         final List<List> testLists = new ArrayList<List>();
         /* parallel test execution is only supported for multi-process execution */
@@ -828,7 +876,9 @@ public class JUnitTask extends Task {
                        : this.threads);
 
         final boolean forkPerTest = forkMode.getValue().equals(ForkMode.PER_TEST);
-        if (forkPerTest || forkMode.getValue().equals(ForkMode.ONCE)) {
+        final boolean forkPerThread = forkMode.getValue().equals(ForkMode.PER_THREAD);
+        if (forkPerTest || forkPerThread
+            || forkMode.getValue().equals(ForkMode.ONCE)) {
             testLists.addAll(executeOrQueue(getIndividualTests(),
                                             forkPerTest));
         } else { /* forkMode.getValue().equals(ForkMode.PER_BATCH) */
@@ -840,9 +890,21 @@ public class JUnitTask extends Task {
             testLists.addAll(executeOrQueue(tests.elements(), forkPerTest));
         }
 
+        if (testDurations != null) {
+            final Comparator<Object> longestFirst = new LongestFirst(testDurations);
+            for (final List l : testLists) {
+                Collections.sort(l, longestFirst);
+            }
+            Collections.sort(testLists, longestFirst);
+        }
+
         try {
-            /* prior to parallel the code in 'oneJunitThread' used to be here. */
-            runTestsInThreads(testLists, threads);
+            if (forkPerThread) {
+                runTestsInForkedRunners(testLists, threads);
+            } else {
+                /* prior to parallel the code in 'oneJunitThread' used to be here. */
+                runTestsInThreads(testLists, threads);
+            }
         } finally {
             cleanup();
         }
@@ -891,7 +953,7 @@ public class JUnitTask extends Task {
      * threads get the same test, or two threads simultaneously pop the list so that a test
      * gets skipped!
      */
-    private List getNextTest(final Iterator<List> iter) {
+    private <T> T getNextTest(final Iterator<T> iter) {
         synchronized(iter) {
             if (iter.hasNext()) {
                 return iter.next();
@@ -961,6 +1023,9 @@ public class JUnitTask extends Task {
             } else {
                  newlist = testList;
             }
+            if (testDurations != null) {
+                Collections.sort(newlist, new LongestFirst(testDurations));
+            }
             iter = newlist.iterator();
 
             /* create 1 thread using the passthrough class, and let each thread start */
@@ -993,6 +1058,254 @@ public class JUnitTask extends Task {
         }
     }
 
+    /*
+     * Adds the formatter recording the durations of the tests and
+     * reads the durations of earlier runs.
+     */
+    private void setupDurationRecording() {
+        if (durationFile == null) {
+            testDurations = null;
+            return;
+        }
+        if (durationRecorder == null) {
+            durationRecorder = new FormatterElement();
+            durationRecorder
+                .setClassname(FormatterElement.DURATION_RECORDER_CLASS_NAME);
+            durationRecorder.setUseFile(false);
+            addFormatter(durationRecorder);
+            final Environment.Variable location = new Environment.Variable();
+            location.setKey(DurationRecorder.MAGIC_PROPERTY_DURATION_FILE);
+            location.setFile(durationFile);
+            addSysproperty(location);
+        }
+        try {
+            testDurations = DurationStore.load(durationFile);
+        } catch (final IOException e) {
+            throw new BuildException("Unable to read test durations from "
+                                     + durationFile, e, getLocation());
+        }
+        log("Read durations of " + testDurations.size() + " tests from "
+            + durationFile, Project.MSG_VERBOSE);
+    }
+
+    /**
+     * Orders tests or lists of tests by their recorded durations,
+     * longest first.  Tests without a recorded duration are considered
+     * to be longer than all others.
+     */
+    private static class LongestFirst implements Comparator<Object> {
+        private final Map<String, Long> durations;
+
+        LongestFirst(final Map<String, Long> durations) {
+            this.durations = durations;
+        }
+
+        public int compare(final Object o1, final Object o2) {
+            final long d1 = getDuration(o1);
+            final long d2 = getDuration(o2);
+            return d1 < d2 ? 1 : (d1 == d2 ? 0 : -1);
+        }
+
+        private long getDuration(final Object o) {
+            if (o instanceof JUnitTest) {
+                final Long d = durations.get(((JUnitTest) o).getName());
+                return d == null ? Long.MAX_VALUE : d.longValue();
+            }
+            long sum = 0;
+            for (final Object test : (List) o) {
+                final long d = getDuration(test);
+                if (d == Long.MAX_VALUE) {
+                    return d;
+                }
+                sum += d;
+            }
+            return sum;
+        }
+    }
+
+    /*
+     * With forkmode perThread each list of tests sharing the same VM
+     * configuration is turned into a queue that is drained by one
+     * forked VM per thread.  The VMs ask for the next test via a
+     * socket once they have finished the previous one, so a slow
+     * test class only holds up the VM running it.
+     */
+    private void runTestsInForkedRunners(final List<List> testLists, final int numThreads) {
+        for (final List<JUnitTest> testList : testLists) {
+            final Iterator<JUnitTest> iter = testList.iterator();
+            final int runners = Math.min(numThreads, testList.size());
+            if (runners == 1) {
+                executeQueue(iter, 0);
+                continue;
+            }
+            final Thread[] threads = new Thread[runners];
+            for (int i = 0; i < runners; i++) {
+                final int id = i + 1;
+                threads[i] = new Thread(new Runnable() {
+                        public void run() {
+                            try {
+                                executeQueue(iter, id);
+                            } catch (final BuildException b) {
+                                /* saved to rethrow in main thread to be like single-threaded case */
+                                caughtBuildException = b;
+                            }
+                        }
+                    });
+                threads[i].start();
+            }
+            boolean exceptionOccurred;
+            do {
+                exceptionOccurred = false;
+                try {
+                    for (int i = 0; i < runners; i++) {
+                        threads[i].join();
+                    }
+                } catch (final InterruptedException e) {
+                    exceptionOccurred = true;
+                }
+            } while (exceptionOccurred);
+
+            if (caughtBuildException != null) {
+                throw new BuildException(caughtBuildException);
+            }
+        }
+    }
+
+    /*
+     * Forks Java VMs that take their tests from the shared queue until
+     * the queue is empty.  Normally a single VM runs until the queue
+     * has been drained, a new one is only forked if the previous one
+     * crashed or timed out.
+     */
+    private void executeQueue(final Iterator<JUnitTest> iter, final int thread) {
+        log("Starting test thread " + thread, Project.MSG_VERBOSE);
+        JUnitTest test;
+        while ((caughtBuildException == null) && ((test = getNextTest(iter)) != null)) {
+            test.setThread(thread);
+            final TestQueueServer server = new TestQueueServer(test, iter, thread);
+            final TestResultHolder result;
+            try {
+                server.start();
+                result = executeAsForked(test, createWatchdog(), null, server);
+            } finally {
+                server.close();
+            }
+            actOnTestResult(result, test, "Tests");
+            if (!server.hasServedTests()) {
+                // the VM didn't even ask for its first test, another one won't either
+                reportUnrunTests(iter);
+                break;
+            }
+        }
+        log("Ending test thread " + thread, Project.MSG_VERBOSE);
+    }
+
+    /*
+     * Reports every test left in the queue as an error, so tests
+     * aren't dropped silently if the forked VMs can't be started.
+     */
+    private void reportUnrunTests(final Iterator<JUnitTest> iter) {
+        JUnitTest next;
+        while ((caughtBuildException == null) && ((next = getNextTest(iter)) != null)) {
+            // same defaults as getTestCaseLine
+            final JUnitTest test = (JUnitTest) next.clone();
+            if (test.getTodir() == null) {
+                test.setTodir(getProject().resolveFile("."));
+            }
+            if (test.getOutfile() == null) {
+                test.setOutfile("TEST-" + test.getName());
+            }
+            final TestResultHolder result = new TestResultHolder();
+            result.crashed = true;
+            logVmExit(mergeFormatters(test), test,
+                      "Test not run as the forked Java VM exited before"
+                      + " requesting any tests.", "unknown");
+            actOnTestResult(result, test, "Test " + test.getName());
+        }
+    }
+
+    /**
+     * Hands out the tests of a shared queue to a forked VM, one line
+     * per request in the format used by the cases file of batch tests.
+     */
+    private class TestQueueServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private final Iterator<JUnitTest> queue;
+        private final int thread;
+        private JUnitTest first;
+        private volatile boolean served = false;
+        private Thread serverThread;
+
+        TestQueueServer(final JUnitTest first, final Iterator<JUnitTest> queue,
+                        final int thread) {
+            this.first = first;
+            this.queue = queue;
+            this.thread = thread;
+            try {
+                serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            } catch (final IOException e) {
+                throw new BuildException("Failed to create socket for test queue",
+                                         e, getLocation());
+            }
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        boolean hasServedTests() {
+            return served;
+        }
+
+        void start() {
+            serverThread = new Thread(this, "JUnit test queue " + thread);
+            serverThread.setDaemon(true);
+            serverThread.start();
+        }
+
+        void close() {
+            FileUtils.close(serverSocket);
+            if (serverThread != null) {
+                try {
+                    serverThread.join();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        public void run() {
+            try (Socket socket = serverSocket.accept();
+                 BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), "UTF-8")) {
+                while (in.readLine() != null) {
+                    JUnitTest test = first;
+                    first = null;
+                    if (test == null && caughtBuildException == null) {
+                        test = getNextTest(queue);
+                    }
+                    if (test == null) {
+                        break;
+                    }
+                    test.setThread(thread);
+                    final String line = getTestCaseLine(test);
+                    log("Running test " + line + " in thread " + thread, Project.MSG_VERBOSE);
+                    out.write(line);
+                    out.write('\n');
+                    out.flush();
+                    served = true;
+                }
+            } catch (final IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log("Error while serving tests: " + e, Project.MSG_WARN);
+                }
+            } finally {
+                FileUtils.close(serverSocket);
+            }
+        }
+    }
+
     /**
      * Run the tests.
      * @param arg one JUnitTest
@@ -1074,23 +1387,7 @@ public class JUnitTask extends Task {
             while (iter.hasNext()) {
                 test = (JUnitTest) iter.next();
                 test.setThread(thread);
-                printDual(writer, logWriter, test.getName());
-                if (test.getMethods() != null) {
-                    printDual(writer, logWriter, ":" + test.getMethodsString().replace(',', '+'));
-                }
-                if (test.getTodir() == null) {
-                    printDual(writer, logWriter,
-                              "," + getProject().resolveFile("."));
-                } else {
-                    printDual(writer, logWriter, "," + test.getTodir());
-                }
-
-                if (test.getOutfile() == null) {
-                    printlnDual(writer, logWriter,
-                                "," + "TEST-" + test.getName());
-                } else {
-                    printlnDual(writer, logWriter, "," + test.getOutfile());
-                }
+                printlnDual(writer, logWriter, getTestCaseLine(test));
             }
             writer.flush();
             writer.close();
@@ -1124,6 +1421,23 @@ public class JUnitTask extends Task {
         execute(testList, 0);
     }
 
+    /**
+     * The line describing a test in a cases file, the name (with
+     * methods), destination directory and output file separated by
+     * commas.
+     */
+    private String getTestCaseLine(final JUnitTest test) {
+        final StringBuilder sb = new StringBuilder(test.getName());
+        if (test.getMethods() != null) {
+            sb.append(':').append(test.getMethodsString().replace(',', '+'));
+        }
+        sb.append(',').append(test.getTodir() == null
+                              ? getProject().resolveFile(".") : test.getTodir());
+        sb.append(',').append(test.getOutfile() == null
+                              ? "TEST-" + test.getName() : test.getOutfile());
+        return sb.toString();
+    }
+
     /**
      * Execute a testcase by forking a new JVM. The command will block
      * until it finishes. To know if the process was destroyed or not
@@ -1139,10 +1453,24 @@ public class JUnitTask extends Task {
      * @throws BuildException in case of error creating a temporary property file,
      * or if the junit process can not be forked
      */
-    private TestResultHolder executeAsForked(JUnitTest test,
+    private TestResultHolder executeAsForked(final JUnitTest test,
                                              final ExecuteWatchdog watchdog,
                                              final File casesFile)
         throws BuildException {
+        return executeAsForked(test, watchdog, casesFile, null);
+    }
+
+    /**
+     * Execute a testcase by forking a new JVM.
+     * @param casesServer serves the tests to execute. Can be
+     * <tt>null</tt>, in this case casesFile is used.
+     * @see #executeAsForked(JUnitTest, ExecuteWatchdog, File)
+     */
+    private TestResultHolder executeAsForked(JUnitTest test,
+                                             final ExecuteWatchdog watchdog,
+                                             final File casesFile,
+                                             final TestQueueServer casesServer)
+        throws BuildException {
 
         if (perm != null) {
             log("Permissions ignored when running in forked mode!",
@@ -1155,7 +1483,10 @@ public class JUnitTask extends Task {
         } catch (final CloneNotSupportedException e) {
             throw new BuildException("This shouldn't happen", e, getLocation());
         }
-        if (casesFile == null) {
+        if (casesServer != null) {
+            log("Running tests from a queue in the same VM", Project.MSG_VERBOSE);
+            cmd.createArgument().setValue(Constants.TESTSPORT + casesServer.getPort());
+        } else if (casesFile == null) {
             cmd.createArgument().setValue(test.getName());
             if (test.getMethods() != null) {
                 cmd.createArgument().setValue(Constants.METHOD_NAMES + test.getMethodsString());
@@ -1253,11 +1584,14 @@ public class JUnitTask extends Task {
         checkForkedPath(cmd);
 
         final TestResultHolder result = new TestResultHolder();
+        boolean exited = false;
         try {
             result.exitCode = execute.execute();
+            exited = !execute.killedProcess();
         } catch (final IOException e) {
             throw new BuildException("Process fork failed.", e, getLocation());
         } finally {
+            cmd.completeSharedArchive(exited);
             String vmCrashString = "unknown";
             BufferedReader br = null;
             try {
@@ -1283,7 +1617,7 @@ public class JUnitTask extends Task {
             final boolean crash = (watchdog != null && watchdog.killedProcess())
                 || !Constants.TERMINATED_SUCCESSFULLY.equals(vmCrashString);
 
-            if (casesFile != null && crash) {
+            if ((casesFile != null || casesServer != null) && crash) {
                 test = createDummyTestForBatchTest(test);
             }
 
@@ -2055,6 +2389,11 @@ public class JUnitTask extends Task {
          * fork once per batch of tests
          */
         public static final String PER_BATCH = "perBatch";
+        /**
+         * fork once per thread, the forked VMs share a queue of tests
+         * @since Ant 1.10.0
+         */
+        public static final String PER_THREAD = "perThread";
 
         /** No arg constructor. */
         public ForkMode() {
@@ -2063,7 +2402,7 @@ public class JUnitTask extends Task {
 
         /**
          * Constructor using a value.
-         * @param value the value to use - once, perTest or perBatch.
+         * @param value the value to use - once, perTest, perBatch or perThread.
          */
         public ForkMode(final String value) {
             super();
@@ -2073,7 +2412,7 @@ public class JUnitTask extends Task {
         /** {@inheritDoc}. */
         @Override
         public String[] getValues() {
-            return new String[] {ONCE, PER_TEST, PER_BATCH};
+            return new String[] {ONCE, PER_TEST, PER_BATCH, PER_THREAD};
         }
     }
 
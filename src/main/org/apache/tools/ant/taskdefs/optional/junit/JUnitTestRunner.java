@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Enumeration;
@@ -909,9 +910,13 @@ public class JUnitTestRunner implements TestListener, JUnitTaskMirror.JUnitTestR
             System.exit(ERRORS);
         }
 
+        int testsPort = -1;
         if (args[0].startsWith(Constants.TESTSFILE)) {
             multipleTests = true;
             args[0] = args[0].substring(Constants.TESTSFILE.length());
+        } else if (args[0].startsWith(Constants.TESTSPORT)) {
+            multipleTests = true;
+            testsPort = Integer.parseInt(args[0].substring(Constants.TESTSPORT.length()));
         }
 
         for (int i = 1; i < args.length; i++) {
@@ -972,16 +977,28 @@ public class JUnitTestRunner implements TestListener, JUnitTaskMirror.JUnitTestR
 
         int returnCode = SUCCESS;
         if (multipleTests) {
+            java.net.Socket testsSocket = null;
             try {
-                final java.io.BufferedReader reader =
-                    new java.io.BufferedReader(new java.io.FileReader(args[0]));
+                final java.io.BufferedReader reader;
+                Writer requests = null;
+                if (testsPort != -1) {
+                    // ask the task for one test at a time
+                    testsSocket = new java.net.Socket(java.net.InetAddress.getLoopbackAddress(),
+                                                      testsPort);
+                    reader = new java.io.BufferedReader(
+                        new java.io.InputStreamReader(testsSocket.getInputStream(), "UTF-8"));
+                    requests = new java.io.OutputStreamWriter(testsSocket.getOutputStream(),
+                                                              "UTF-8");
+                } else {
+                    reader = new java.io.BufferedReader(new java.io.FileReader(args[0]));
+                }
                 String testCaseName;
                 String[] testMethodNames;
                 int code = 0;
                 boolean errorOccurred = false;
                 boolean failureOccurred = false;
                 String line = null;
-                while ((line = reader.readLine()) != null) {
+                while ((line = nextTestCaseLine(reader, requests)) != null) {
                     final StringTokenizer st = new StringTokenizer(line, ",");
                     final String testListSpec = st.nextToken();
                     final int colonIndex = testListSpec.indexOf(':');
@@ -1024,6 +1041,8 @@ public class JUnitTestRunner implements TestListener, JUnitTaskMirror.JUnitTestR
                 }
             } catch (final IOException e) {
                 e.printStackTrace();
+            } finally {
+                FileUtils.close(testsSocket);
             }
         } else {
             final JUnitTest t = new JUnitTest(args[0]);
@@ -1039,6 +1058,19 @@ public class JUnitTestRunner implements TestListener, JUnitTaskMirror.JUnitTestR
         System.exit(returnCode);
     }
 
+    /**
+     * Reads the next line of the cases file or requests the next one
+     * from the task if the tests are served over a socket.
+     */
+    private static String nextTestCaseLine(final BufferedReader reader, final Writer requests)
+        throws IOException {
+        if (requests != null) {
+            requests.write("next\n");
+            requests.flush();
+        }
+        return reader.readLine();
+    }
+
     private static Vector fromCmdLine = new Vector();
 
     private static void transferFormatters(final JUnitTestRunner runner,
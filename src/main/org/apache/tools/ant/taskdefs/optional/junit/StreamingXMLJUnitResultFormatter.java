@@ -0,0 +1,38 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.taskdefs.optional.junit;
+
+/**
+ * Prints XML output of the test to a specified Writer without keeping
+ * all testcases of a testsuite in memory.
+ *
+ * <p>Produces the same output as {@link XMLJUnitResultFormatter} but
+ * writes each testcase to a temporary file once it has completed.
+ * This keeps the memory consumption of the test VM independent of the
+ * number of tests and the amount of output of a testsuite.</p>
+ *
+ * @see FormatterElement
+ * @since Ant 1.10.0
+ */
+public class StreamingXMLJUnitResultFormatter extends XMLJUnitResultFormatter {
+
+    /** No arg constructor. */
+    public StreamingXMLJUnitResultFormatter() {
+        super(true);
+    }
+}
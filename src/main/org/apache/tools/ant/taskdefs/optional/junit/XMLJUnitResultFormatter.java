@@ -19,9 +19,14 @@
 package org.apache.tools.ant.taskdefs.optional.junit;
 
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -40,8 +45,10 @@ import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.util.DOMElementWriter;
 import org.apache.tools.ant.util.DateUtils;
 import org.apache.tools.ant.util.FileUtils;
+import org.apache.tools.ant.util.StringUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.Text;
 
 
@@ -55,6 +62,8 @@ public class XMLJUnitResultFormatter implements JUnitResultFormatter, XMLConstan
 
     private static final double ONE_SECOND = 1000.0;
 
+    private static final int BUFFER_SIZE = 8192;
+
     /** constant for unnnamed testsuites/cases */
     private static final String UNKNOWN = "unknown";
 
@@ -108,8 +117,43 @@ public class XMLJUnitResultFormatter implements JUnitResultFormatter, XMLConstan
      */
     private OutputStream out;
 
+    /**
+     * Whether completed testcases are moved out of the DOM tree.
+     */
+    private final boolean streaming;
+
+    /**
+     * Temporary file holding the completed children of the testsuite
+     * in streaming mode.
+     */
+    private File spillFile;
+
+    /**
+     * Writer for {@link #spillFile spillFile}.
+     */
+    private Writer spill;
+
     /** No arg constructor. */
     public XMLJUnitResultFormatter() {
+        this(false);
+    }
+
+    /**
+     * Creates a formatter that may write completed testcases to a
+     * temporary file rather than keeping them in memory.
+     *
+     * <p>In streaming mode only the currently running test is kept in
+     * the DOM tree, the children of the testsuite element are written
+     * to a temporary file as soon as the next test starts.  The
+     * testsuite element itself can only be written at the end once
+     * all of its attributes are known, it is followed by the content
+     * of the temporary file.</p>
+     *
+     * @param streaming whether to use streaming mode
+     * @since Ant 1.10.0
+     */
+    protected XMLJUnitResultFormatter(final boolean streaming) {
+        this.streaming = streaming;
     }
 
     /** {@inheritDoc}. */
@@ -132,6 +176,7 @@ public class XMLJUnitResultFormatter implements JUnitResultFormatter, XMLConstan
      * @param suite the testsuite.
      */
     public void startTestSuite(final JUnitTest suite) {
+        closeSpill();
         doc = getDocumentBuilder().newDocument();
         rootElement = doc.createElement(TESTSUITE);
         final String n = suite.getName();
@@ -194,10 +239,15 @@ public class XMLJUnitResultFormatter implements JUnitResultFormatter, XMLConstan
             try {
                 wri = new BufferedWriter(new OutputStreamWriter(out, "UTF8"));
                 wri.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
-                (new DOMElementWriter()).write(rootElement, wri, 0, "  ");
+                if (spill == null) {
+                    (new DOMElementWriter()).write(rootElement, wri, 0, "  ");
+                } else {
+                    writeSpilledSuite(wri);
+                }
             } catch (final IOException exc) {
                 throw new BuildException("Unable to write log file", exc);
             } finally {
+                closeSpill();
                 if (wri != null) {
                     try {
                         wri.flush();
@@ -219,9 +269,75 @@ public class XMLJUnitResultFormatter implements JUnitResultFormatter, XMLConstan
      * @param t the test.
      */
     public void startTest(final Test t) {
+        if (streaming) {
+            spillCompleted();
+        }
         testStarts.put(createDescription(t), System.currentTimeMillis());
     }
 
+    /**
+     * Moves all children of the testsuite element to the temporary
+     * file and forgets about the tests that have been run so far.
+     */
+    private void spillCompleted() {
+        if (rootElement == null || !rootElement.hasChildNodes()) {
+            return;
+        }
+        try {
+            if (spill == null) {
+                spillFile = FileUtils.getFileUtils()
+                    .createTempFile("junit", ".xml", null, true, true);
+                spill = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(spillFile), "UTF8"));
+            }
+            final DOMElementWriter domWriter = new DOMElementWriter();
+            Node child;
+            while ((child = rootElement.getFirstChild()) != null) {
+                domWriter.write((Element) child, spill, 1, "  ");
+                rootElement.removeChild(child);
+            }
+        } catch (final IOException exc) {
+            throw new BuildException("Unable to write temporary file", exc);
+        }
+        testElements.clear();
+        failedTests.clear();
+        skippedTests.clear();
+        ignoredTests.clear();
+        testStarts.clear();
+    }
+
+    /**
+     * Writes the testsuite element with the content of the temporary
+     * file followed by the children not spilled, yet.
+     */
+    private void writeSpilledSuite(final Writer wri) throws IOException {
+        spill.close();
+        final DOMElementWriter domWriter = new DOMElementWriter();
+        domWriter.openElement(rootElement, wri, 0, "  ", true);
+        wri.write(StringUtils.LINE_SEP);
+        try (Reader in = new InputStreamReader(new FileInputStream(spillFile), "UTF8")) {
+            final char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                wri.write(buffer, 0, read);
+            }
+        }
+        for (Node child = rootElement.getFirstChild(); child != null;
+             child = child.getNextSibling()) {
+            domWriter.write((Element) child, wri, 1, "  ");
+        }
+        domWriter.closeElement(rootElement, wri, 0, "  ", true);
+    }
+
+    private void closeSpill() {
+        FileUtils.close(spill);
+        spill = null;
+        if (spillFile != null) {
+            FileUtils.delete(spillFile);
+            spillFile = null;
+        }
+    }
+
     private static String createDescription(final Test test) throws BuildException {
         return JUnitVersionHelper.getTestCaseName(test) + "(" + JUnitVersionHelper.getTestCaseClassName(test) + ")";
     }
@@ -18,17 +18,36 @@
 package org.apache.tools.ant.taskdefs.optional.junit;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
@@ -80,6 +99,18 @@ public class XMLResultAggregator extends Task implements XMLConstants {
     /** the current generated id */
     protected int generatedId = 0;
 
+    /**
+     * whether to stream the testsuites rather than building a DOM tree
+     * @since Ant 1.10.0
+     */
+    private boolean streaming = false;
+
+    /**
+     * number of threads reading testsuites in streaming mode
+     * @since Ant 1.10.0
+     */
+    private int threads = 1;
+
     /**
      * text checked for in tests, {@value}
      */
@@ -128,6 +159,32 @@ public class XMLResultAggregator extends Task implements XMLConstants {
         toDir = value;
     }
 
+    /**
+     * Whether the testsuites should be copied to the result file one
+     * at a time using StAX rather than building a DOM tree holding all
+     * of them.  Defaults to false.
+     *
+     * <p>In streaming mode only a single testsuite (per thread) is kept
+     * in memory and the transformers are not given a DOM tree, they
+     * read the result file anyway.</p>
+     * @param streaming whether to stream the testsuites.
+     * @since Ant 1.10.0
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Number of threads that read testsuites in parallel in streaming
+     * mode.  The testsuites are written in the same order as in
+     * non-parallel mode.  Defaults to 1.
+     * @param threads the number of threads, must be positive.
+     * @since Ant 1.10.0
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     /**
      * Add a new fileset containing the XML results to aggregate
      * @param    fs      the new fileset of xml results.
@@ -143,6 +200,14 @@ public class XMLResultAggregator extends Task implements XMLConstants {
      *          the document.
      */
     public void execute() throws BuildException {
+        if (threads < 1) {
+            throw new BuildException("threads must be a positive number",
+                                     getLocation());
+        }
+        if (streaming) {
+            executeStreaming();
+            return;
+        }
         Element rootElement = createDocument();
         File destFile = getDestinationFile();
         // write the document
@@ -161,6 +226,28 @@ public class XMLResultAggregator extends Task implements XMLConstants {
         }
     }
 
+    /**
+     * Aggregate all testsuites by copying them to the destination file
+     * one by one and apply the transformations.
+     * @throws  BuildException  thrown if there is a serious error while writing
+     *          the document.
+     */
+    private void executeStreaming() throws BuildException {
+        File destFile = getDestinationFile();
+        try {
+            writeStreamedSuites(destFile);
+        } catch (IOException e) {
+            throw new BuildException("Unable to write test aggregate to '" + destFile + "'", e);
+        }
+        Enumeration e = transformers.elements();
+        while (e.hasMoreElements()) {
+            AggregateTransformer transformer =
+                (AggregateTransformer) e.nextElement();
+            transformer.setXmlDocument(null);
+            transformer.transform();
+        }
+    }
+
     /**
      * Get the full destination file where to write the result. It is made of
      * the <tt>todir</tt> and <tt>tofile</tt> attributes.
@@ -309,6 +396,280 @@ public class XMLResultAggregator extends Task implements XMLConstants {
         copy.setAttribute(ATTR_ID, Integer.toString(generatedId));
     }
 
+    //----- streaming aggregation
+
+    /**
+     * Write all testsuites to the given file.  The suites are read by
+     * up to <code>threads</code> threads, at most twice as many suites
+     * are held in memory at any time.
+     * @param file the destination file.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeStreamedSuites(File file) throws IOException {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        File[] files = getFiles();
+        ExecutorService executor = threads > 1
+            ? Executors.newFixedThreadPool(threads) : null;
+        generatedId = 0;
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            os.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<"
+                      + TESTSUITES + ">\n").getBytes(StandardCharsets.UTF_8));
+            LinkedList<Future<StreamedSuite>> pending =
+                new LinkedList<Future<StreamedSuite>>();
+            int next = 0;
+            while (next < files.length || !pending.isEmpty()) {
+                while (next < files.length && pending.size() < 2 * threads) {
+                    File f = files[next++];
+                    log("Parsing file: '" + f + "'", Project.MSG_VERBOSE);
+                    Callable<StreamedSuite> reader =
+                        new SuiteReader(f, inputFactory, outputFactory);
+                    if (executor == null) {
+                        FutureTask<StreamedSuite> task =
+                            new FutureTask<StreamedSuite>(reader);
+                        task.run();
+                        pending.add(task);
+                    } else {
+                        pending.add(executor.submit(reader));
+                    }
+                }
+                writeStreamedSuite(os, get(pending.removeFirst()));
+            }
+            os.write(("</" + TESTSUITES + ">\n").getBytes(StandardCharsets.UTF_8));
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static StreamedSuite get(Future<StreamedSuite> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildException(e);
+        } catch (ExecutionException e) {
+            throw new BuildException(e.getCause());
+        }
+    }
+
+    /**
+     * Log the problems found while reading a testsuite or append the
+     * testsuite to the result.
+     */
+    private void writeStreamedSuite(OutputStream os, StreamedSuite suite)
+        throws IOException {
+        File file = suite.file;
+        if (suite.problem != null) {
+            log("the file " + file + suite.problem, Project.MSG_WARN);
+        } else if (suite.failure instanceof XMLStreamException) {
+            log("The file " + file + WARNING_IS_POSSIBLY_CORRUPTED, Project.MSG_WARN);
+            log(StringUtils.getStackTrace(suite.failure), Project.MSG_DEBUG);
+        } else if (suite.failure != null) {
+            log("Error while accessing file " + file + ": "
+                + suite.failure.getMessage(), Project.MSG_ERR);
+            log("Error while accessing file " + file + ": "
+                + suite.failure.getMessage(), suite.failure, Project.MSG_VERBOSE);
+        } else {
+            DOMElementWriter domWriter = new DOMElementWriter();
+            StringBuilder start = new StringBuilder("  <").append(TESTSUITE);
+            for (Map.Entry<String, String> a : suite.attributes.entrySet()) {
+                start.append(' ').append(a.getKey()).append("=\"")
+                    .append(domWriter.encodeAttributeValue(a.getValue()))
+                    .append('"');
+            }
+            start.append(' ').append(ATTR_ID).append("=\"")
+                .append(generatedId++).append("\">");
+            os.write(start.toString().getBytes(StandardCharsets.UTF_8));
+            os.write(suite.body);
+            os.write(("</" + TESTSUITE + ">\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** A testsuite read from a file or the reason it couldn't be read. */
+    private static final class StreamedSuite {
+        private final File file;
+        /** attributes of the testsuite element, id is added when written */
+        private Map<String, String> attributes;
+        /** the content of the testsuite element as UTF-8 */
+        private byte[] body;
+        /** one of the WARNING_* constants */
+        private String problem;
+        private Exception failure;
+
+        private StreamedSuite(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Reads a testsuite document and copies the children of the
+     * testsuite element into a byte array.
+     */
+    private static final class SuiteReader implements Callable<StreamedSuite> {
+        private final File file;
+        private final XMLInputFactory inputFactory;
+        private final XMLOutputFactory outputFactory;
+
+        private SuiteReader(File file, XMLInputFactory inputFactory,
+                            XMLOutputFactory outputFactory) {
+            this.file = file;
+            this.inputFactory = inputFactory;
+            this.outputFactory = outputFactory;
+        }
+
+        public StreamedSuite call() {
+            StreamedSuite suite = new StreamedSuite(file);
+            if (file.length() == 0) {
+                suite.problem = WARNING_EMPTY_FILE;
+                return suite;
+            }
+            try (InputStream in = new FileInputStream(file)) {
+                XMLStreamReader reader = inputFactory
+                    .createXMLStreamReader(file.toURI().toString(), in);
+                try {
+                    read(reader, suite);
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException | IOException e) {
+                suite.failure = e;
+                suite.attributes = null;
+                suite.body = null;
+                suite.problem = null;
+            }
+            return suite;
+        }
+
+        private void read(XMLStreamReader reader, StreamedSuite suite)
+            throws XMLStreamException {
+            reader.nextTag();
+            if (!TESTSUITE.equals(qName(reader.getPrefix(), reader.getLocalName()))) {
+                suite.problem = WARNING_INVALID_ROOT_ELEMENT;
+                // still make sure it is well-formed
+                while (reader.hasNext()) {
+                    reader.next();
+                }
+                return;
+            }
+            suite.attributes = readRootAttributes(reader);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            XMLStreamWriter writer =
+                outputFactory.createXMLStreamWriter(body, "UTF-8");
+            copyContent(reader, writer);
+            writer.close();
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            suite.body = body.toByteArray();
+        }
+
+        /**
+         * The attributes of the testsuite element with the fully
+         * qualified name split into name and package.
+         */
+        private static Map<String, String> readRootAttributes(XMLStreamReader reader) {
+            Map<String, String> attributes = new LinkedHashMap<String, String>();
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                attributes.put(prefix == null || prefix.length() == 0
+                               ? "xmlns" : "xmlns:" + prefix,
+                               reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                attributes.put(qName(reader.getAttributePrefix(i),
+                                     reader.getAttributeLocalName(i)),
+                               reader.getAttributeValue(i));
+            }
+            String fullclassname = attributes.containsKey(ATTR_NAME)
+                ? attributes.get(ATTR_NAME) : "";
+            int pos = fullclassname.lastIndexOf('.');
+            attributes.put(ATTR_NAME,
+                           pos == -1 ? fullclassname : fullclassname.substring(pos + 1));
+            attributes.put(ATTR_PACKAGE,
+                           pos == -1 ? "" : fullclassname.substring(0, pos));
+            attributes.remove(ATTR_ID);
+            return attributes;
+        }
+
+        /**
+         * Copies everything up to the end tag of the element the
+         * reader is positioned on.
+         */
+        private static void copyContent(XMLStreamReader reader, XMLStreamWriter writer)
+            throws XMLStreamException {
+            int depth = 0;
+            while (true) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    writer.writeStartElement(nonNull(reader.getPrefix()),
+                                             reader.getLocalName(),
+                                             nonNull(reader.getNamespaceURI()));
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        String prefix = nonNull(reader.getNamespacePrefix(i));
+                        if (prefix.length() == 0) {
+                            writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+                        } else {
+                            writer.writeNamespace(prefix, reader.getNamespaceURI(i));
+                        }
+                    }
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        String prefix = nonNull(reader.getAttributePrefix(i));
+                        if (prefix.length() == 0) {
+                            writer.writeAttribute(reader.getAttributeLocalName(i),
+                                                  reader.getAttributeValue(i));
+                        } else {
+                            writer.writeAttribute(prefix,
+                                                  reader.getAttributeNamespace(i),
+                                                  reader.getAttributeLocalName(i),
+                                                  reader.getAttributeValue(i));
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth-- == 0) {
+                        writer.flush();
+                        return;
+                    }
+                    writer.writeEndElement();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    writer.writeCharacters(reader.getTextCharacters(),
+                                           reader.getTextStart(),
+                                           reader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(reader.getText());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    writer.writeProcessingInstruction(reader.getPITarget(),
+                                                      reader.getPIData());
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    writer.writeEntityRef(reader.getLocalName());
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        private static String qName(String prefix, String localName) {
+            return prefix == null || prefix.length() == 0
+                ? localName : prefix + ":" + localName;
+        }
+
+        private static String nonNull(String s) {
+            return s == null ? "" : s;
+        }
+    }
+
     /**
      * Create a new document builder. Will issue an <tt>ExceptionInitializerError</tt>
      * if something is going wrong. It is fatal anyway.
@@ -19,6 +19,7 @@ package org.apache.tools.ant.types;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -483,7 +484,21 @@ public abstract class AbstractFileSet extends DataType
         }
         dieOnCircularReference();
         DirectoryScanner ds = null;
+        ScanCache cache = null;
+        List<Object> cacheKey = null;
+        long generation = 0;
         synchronized (this) {
+            if (dir != null && selectors.isEmpty()) {
+                cache = ScanCache.getScanCache(p);
+            }
+            if (cache != null) {
+                cacheKey = getScanCacheKey(p);
+                ds = cache.get(cacheKey, dir);
+                if (ds != null) {
+                    return ds;
+                }
+                generation = ScanCache.currentGeneration();
+            }
             if (directoryScanner != null && p == getProject()) {
                 ds = directoryScanner;
             } else {
@@ -509,9 +524,37 @@ public abstract class AbstractFileSet extends DataType
             }
         }
         ds.scan();
+        if (cache != null) {
+            cache.put(cacheKey, ds, generation);
+        }
         return ds;
     }
 
+    /**
+     * Everything that influences the result of scanning this
+     * fileset, used as key for the project's scan cache.
+     */
+    private List<Object> getScanCacheKey(Project p) {
+        PatternSet ps = mergePatterns(p);
+        return Arrays.<Object>asList(dir.getAbsoluteFile(),
+                                     sortedList(ps.getIncludePatterns(p)),
+                                     sortedList(ps.getExcludePatterns(p)),
+                                     useDefaultExcludes
+                                     ? sortedList(DirectoryScanner.getDefaultExcludes())
+                                     : null,
+                                     caseSensitive, followSymlinks,
+                                     maxLevelsOfSymlinks, errorOnMissingDir);
+    }
+
+    private static List<String> sortedList(String[] patterns) {
+        if (patterns == null) {
+            return null;
+        }
+        List<String> l = new ArrayList<String>(Arrays.asList(patterns));
+        Collections.sort(l);
+        return l;
+    }
+
     /**
      * Set up the specified directory scanner against this
      * AbstractFileSet's Project.
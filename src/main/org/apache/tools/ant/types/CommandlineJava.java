@@ -18,15 +18,23 @@
 
 package org.apache.tools.ant.types;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Properties;
+import java.util.Set;
 import java.util.Vector;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
+import org.apache.tools.ant.util.FileUtils;
 import org.apache.tools.ant.util.JavaEnvUtils;
 
 /**
@@ -74,6 +82,32 @@ public class CommandlineJava implements Cloneable {
      */
     private boolean cloneVm = false;
 
+    /**
+     * Directory holding class data sharing archives.
+     * @since Ant 1.10.0
+     */
+    private File sharedArchiveDir = null;
+
+    /**
+     * The class data sharing option chosen for this command line and
+     * the fingerprint it has been chosen for.
+     */
+    private String sharedArchiveOption = null;
+    private String sharedArchiveFingerprint = null;
+
+    /**
+     * The archive the VM started with this command line creates and
+     * the temporary file it writes it to.
+     */
+    private File sharedArchive = null;
+    private File sharedArchiveTemp = null;
+
+    /**
+     * Archives that are being created by a VM started from this
+     * process, other VMs must not use them before they are complete.
+     */
+    private static final Set<File> ARCHIVES_IN_CREATION = new HashSet<File>();
+
     /**
      * Specialized Environment class for System properties.
      */
@@ -301,6 +335,34 @@ public class CommandlineJava implements Cloneable {
         this.cloneVm = cloneVm;
     }
 
+    /**
+     * Set the directory in which class data sharing (AppCDS) archives
+     * for the forked VM are kept.
+     *
+     * <p>The archive is chosen by a fingerprint of the VM executable
+     * and the class, module and boot paths including timestamp and size
+     * of their elements.  If the archive exists, the VM is told to use
+     * it, otherwise the VM is told to create it when it exits.  Any
+     * change of the paths therefore leads to a new archive.  Requires
+     * the forked VM to be Java 13 or later.</p>
+     *
+     * @param dir the directory, null to disable class data sharing
+     * archives
+     * @since Ant 1.10.0
+     */
+    public void setSharedArchiveDir(File dir) {
+        sharedArchiveDir = dir;
+    }
+
+    /**
+     * Get the directory holding the class data sharing archives.
+     * @return the directory or null.
+     * @since Ant 1.10.0
+     */
+    public File getSharedArchiveDir() {
+        return sharedArchiveDir;
+    }
+
     /**
      * Get the current assertions.
      * @return assertions or null.
@@ -507,6 +569,11 @@ public class CommandlineJava implements Cloneable {
             clonedSysProperties.addSyspropertyset(ps);
             clonedSysProperties.addDefinitionsToList(listIterator);
         }
+        //class data sharing archive
+        String sharedArchive = getSharedArchiveOption();
+        if (sharedArchive != null) {
+            listIterator.add(sharedArchive);
+        }
         //boot classpath
         Path bcp = calculateBootclasspath(true);
         if (bcp.size() > 0) {
@@ -624,6 +691,10 @@ public class CommandlineJava implements Cloneable {
         if (haveClasspath()) {
             size += 2;
         }
+        // class data sharing archive is a single option
+        if (getSharedArchiveOption() != null) {
+            size++;
+        }
         // bootclasspath is "-Xbootclasspath:<classpath>" -> 1 arg
         if (calculateBootclasspath(true).size() > 0) {
             size++;
@@ -742,6 +813,10 @@ public class CommandlineJava implements Cloneable {
             if (assertions != null) {
                 c.assertions = (Assertions) assertions.clone();
             }
+            c.sharedArchiveOption = null;
+            c.sharedArchiveFingerprint = null;
+            c.sharedArchive = null;
+            c.sharedArchiveTemp = null;
             return c;
         } catch (CloneNotSupportedException e) {
             throw new BuildException(e);
@@ -832,6 +907,130 @@ public class CommandlineJava implements Cloneable {
         return new Path(null);
     }
 
+    /**
+     * Determine the VM option needed to use or create the class data
+     * sharing archive for this command line.
+     *
+     * <p>The option is determined once per instance so that repeated
+     * calls to {@link #getCommandline} yield the same command.  Only
+     * a single VM started by this process creates any given archive,
+     * other VMs run without an archive until it has been written.
+     * The VM writes the archive to a temporary file that is only
+     * moved into place by {@link #completeSharedArchive}, so other
+     * processes never see an incomplete archive.</p>
+     *
+     * @return the option or null if no archive should be used.
+     * @since Ant 1.10.0
+     */
+    private synchronized String getSharedArchiveOption() {
+        if (sharedArchiveDir == null) {
+            return null;
+        }
+        String fingerprint = getSharedArchiveFingerprint();
+        if (fingerprint.equals(sharedArchiveFingerprint)) {
+            return sharedArchiveOption;
+        }
+        File archive = new File(sharedArchiveDir, "ant-" + fingerprint + ".jsa");
+        String option = null;
+        if (archive.isFile()) {
+            option = "-XX:SharedArchiveFile=" + archive.getAbsolutePath();
+        } else {
+            boolean create;
+            synchronized (ARCHIVES_IN_CREATION) {
+                create = ARCHIVES_IN_CREATION.add(archive);
+            }
+            if (create) {
+                sharedArchiveDir.mkdirs();
+                sharedArchive = archive;
+                sharedArchiveTemp = FileUtils.getFileUtils()
+                    .createTempFile("ant-" + fingerprint, ".jsa.tmp",
+                                    sharedArchiveDir, false, false);
+                option = "-XX:ArchiveClassesAtExit="
+                    + sharedArchiveTemp.getAbsolutePath();
+            }
+        }
+        sharedArchiveFingerprint = fingerprint;
+        sharedArchiveOption = option;
+        return option;
+    }
+
+    /**
+     * Moves the class data sharing archive written by the VM started
+     * with this command line into place, or removes it if the VM
+     * didn't exit normally.  Must be invoked after that VM has exited,
+     * does nothing if the VM hasn't been told to create an archive.
+     *
+     * @param success whether the VM exited normally
+     * @since Ant 1.10.0
+     */
+    public synchronized void completeSharedArchive(boolean success) {
+        if (sharedArchiveTemp == null) {
+            return;
+        }
+        FileUtils fu = FileUtils.getFileUtils();
+        try {
+            if (success && sharedArchiveTemp.isFile() && !sharedArchive.exists()) {
+                fu.rename(sharedArchiveTemp, sharedArchive);
+            }
+        } catch (IOException e) {
+            // run without an archive and try again next time
+        } finally {
+            if (sharedArchiveTemp.exists()) {
+                fu.tryHardToDelete(sharedArchiveTemp);
+            }
+            synchronized (ARCHIVES_IN_CREATION) {
+                ARCHIVES_IN_CREATION.remove(sharedArchive);
+            }
+            sharedArchive = null;
+            sharedArchiveTemp = null;
+            // choose again for the next VM
+            sharedArchiveFingerprint = null;
+            sharedArchiveOption = null;
+        }
+    }
+
+    /**
+     * Calculates a fingerprint of everything that must match for a
+     * class data sharing archive to be usable.
+     * @return the fingerprint as hex string.
+     */
+    private String getSharedArchiveFingerprint() {
+        StringBuilder sb = new StringBuilder(vmCommand.getExecutable());
+        sb.append('\n').append(String.valueOf(getJar()));
+        Path[] paths = new Path[] {
+            haveClasspath() ? classpath.concatSystemClasspath("ignore") : null,
+            calculateBootclasspath(false),
+            haveModulepath() ? modulepath.concatSystemClasspath("ignore") : null,
+            haveUpgrademodulepath()
+                ? upgrademodulepath.concatSystemClasspath("ignore") : null
+        };
+        for (Path p : paths) {
+            sb.append('\n');
+            if (p == null) {
+                continue;
+            }
+            String[] elements = p.list();
+            for (String element : elements) {
+                File f = new File(element);
+                sb.append(element).append('|').append(f.lastModified())
+                    .append('|').append(f.length()).append(File.pathSeparatorChar);
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5")
+                .digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support MD5
+            throw new BuildException(e);
+        }
+    }
+
     /**
      * Find out whether either of the cloneVm attribute or the magic property
      * ant.build.clonevm has been set.
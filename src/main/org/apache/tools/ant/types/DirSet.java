@@ -84,6 +84,15 @@ public class DirSet extends AbstractFileSet implements ResourceCollection {
         return getDirectoryScanner(getProject()).getIncludedDirsCount();
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether this set contains no directories.
+     * @since Ant 1.10.0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
     /**
      * Always returns true.
      * @return true indicating that all elements will be FileResources.
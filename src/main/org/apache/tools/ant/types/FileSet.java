@@ -82,6 +82,15 @@ public class FileSet extends AbstractFileSet implements ResourceCollection {
         return getDirectoryScanner(getProject()).getIncludedFilesCount();
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether this set contains no files.
+     * @since Ant 1.10.0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
     /**
      * Always returns true.
      * @return true indicating that all elements will be FileResources.
@@ -37,6 +37,22 @@ public interface ResourceCollection extends Iterable<Resource> {
      */
     int size();
 
+    /**
+     * Learn whether this collection contains any Resources at all.
+     *
+     * <p>The default implementation only asks the iterator for the
+     * first Resource, which for lazily evaluated collections is a lot
+     * cheaper than calculating the size.  Implementations that know
+     * their size cheaply or can short-circuit the evaluation of their
+     * nested collections should override this method.</p>
+     *
+     * @return true if the collection is empty
+     * @since Ant 1.10.0
+     */
+    default boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
     /**
      * Indicate whether this ResourceCollection is composed entirely of
      * Resources accessible via local filesystem conventions. If true,
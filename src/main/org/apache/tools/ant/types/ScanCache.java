@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.util.FileUtils;
+
+/**
+ * Shares the results of identical fileset and dirset scans between
+ * all filesets of a project.
+ *
+ * <p>The cache is only used if the property {@link
+ * MagicNames#SCAN_CACHE ant.scancache} has been set to true as it
+ * can't know about files created or removed by tasks that don't call
+ * {@link #invalidate invalidate}.  Ant's own tasks that modify the
+ * file system - like copy, delete, mkdir, touch, move and javac - do
+ * so.</p>
+ *
+ * <p>Every call to invalidate increases a global generation counter
+ * and records the generation for the modified file or directory.  A
+ * cached scan is only reused if no file or directory inside of - or
+ * above - its base directory has been modified since the scan
+ * started.  The counter is global rather than per project so that
+ * modifications made inside of subbuilds invalidate the scans of the
+ * calling build as well.</p>
+ *
+ * @since Ant 1.10.0
+ */
+public final class ScanCache {
+
+    /** maximum number of scans remembered per project */
+    private static final int MAX_ENTRIES = 200;
+
+    /**
+     * maximum number of modified paths remembered, all cached scans
+     * are discarded once this is exceeded
+     */
+    private static final int MAX_MODIFIED = 1000;
+
+    private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /** generation of the last modification keyed by absolute path */
+    private static final Map<String, Long> MODIFIED =
+        new ConcurrentHashMap<String, Long>();
+
+    /** scans started before this generation are stale */
+    private static volatile long flushGeneration;
+
+    private final Map<List<Object>, Entry> entries =
+        new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> e) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private ScanCache() {
+    }
+
+    /**
+     * Obtains the cache of a project.
+     *
+     * @param p the project
+     * @return the cache or null if caching has not been enabled for
+     * the project.
+     */
+    public static ScanCache getScanCache(Project p) {
+        if (p == null || !Project.toBoolean(p.getProperty(MagicNames.SCAN_CACHE))) {
+            return null;
+        }
+        synchronized (ScanCache.class) {
+            ScanCache cache = p.getReference(MagicNames.REFID_SCAN_CACHE);
+            if (cache == null) {
+                cache = new ScanCache();
+                p.addReference(MagicNames.REFID_SCAN_CACHE, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Signals that a file or directory - and anything below it - may
+     * have been created, modified or removed.
+     *
+     * @param f the file or directory, ignored if null
+     */
+    public static void invalidate(File f) {
+        if (f == null) {
+            return;
+        }
+        final String path = normalize(f);
+        final long generation = GENERATION.incrementAndGet();
+        if (MODIFIED.size() >= MAX_MODIFIED) {
+            flushGeneration = generation;
+            MODIFIED.clear();
+        } else {
+            MODIFIED.put(path, generation);
+        }
+    }
+
+    /**
+     * The current generation, should be obtained before scanning
+     * and passed to {@link #put put}.
+     *
+     * @return the current generation
+     */
+    public static long currentGeneration() {
+        return GENERATION.get();
+    }
+
+    /**
+     * Looks up the result of an earlier scan.
+     *
+     * @param key the normalized definition of the scan
+     * @param dir the base directory of the scan
+     * @return an already scanned DirectoryScanner or null
+     */
+    public synchronized DirectoryScanner get(List<Object> key, File dir) {
+        final Entry e = entries.get(key);
+        if (e == null) {
+            return null;
+        }
+        if (isModifiedSince(normalize(dir), e.generation)) {
+            entries.remove(key);
+            return null;
+        }
+        return e.scanner;
+    }
+
+    /**
+     * Remembers the result of a scan.
+     *
+     * @param key the normalized definition of the scan
+     * @param scanner the scanner that has already been scanned
+     * @param generation the generation obtained before the scan has
+     * been started
+     */
+    public synchronized void put(List<Object> key, DirectoryScanner scanner,
+                                 long generation) {
+        entries.put(key, new Entry(scanner, generation));
+    }
+
+    private static boolean isModifiedSince(String dir, long generation) {
+        if (GENERATION.get() == generation) {
+            return false;
+        }
+        if (generation < flushGeneration) {
+            return true;
+        }
+        for (Map.Entry<String, Long> m : MODIFIED.entrySet()) {
+            if (m.getValue().longValue() > generation
+                && (isSameOrBelow(m.getKey(), dir) || isSameOrBelow(dir, m.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameOrBelow(String path, String dir) {
+        return path.startsWith(dir)
+            && (path.length() == dir.length()
+                || dir.endsWith(File.separator)
+                || path.charAt(dir.length()) == File.separatorChar);
+    }
+
+    private static String normalize(File f) {
+        return FILE_UTILS.normalize(f.getAbsolutePath()).getAbsolutePath();
+    }
+
+    private static final class Entry {
+        private final DirectoryScanner scanner;
+        private final long generation;
+
+        private Entry(DirectoryScanner scanner, long generation) {
+            this.scanner = scanner;
+            this.generation = generation;
+        }
+    }
+}
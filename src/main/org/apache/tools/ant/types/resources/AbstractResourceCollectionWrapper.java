@@ -123,6 +123,20 @@ public abstract class AbstractResourceCollectionWrapper
      */
     protected abstract int getSize();
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether the collection is empty, only looks at the
+     * first Resource.
+     * @since Ant 1.10.0
+     */
+    public synchronized boolean isEmpty() {
+        if (isReference()) {
+            return ((AbstractResourceCollectionWrapper) getCheckedRef()).isEmpty();
+        }
+        dieOnCircularReference();
+        return !createIterator().hasNext();
+    }
+
     /**
      * Fulfill the ResourceCollection contract.
      * @return whether this is a filesystem-only resource collection.
@@ -40,7 +40,7 @@ public class AllButLast extends SizeLimitCollection {
         List<Resource> result =
             (List<Resource>) CollectionUtils.asCollection(getResourceCollection()
                                                           .iterator());
-        return result.subList(0, result.size() - ct);
+        return result.subList(0, Math.max(0, result.size() - ct));
     }
 
     @Override
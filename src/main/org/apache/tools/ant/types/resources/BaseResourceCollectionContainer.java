@@ -154,6 +154,20 @@ public abstract class BaseResourceCollectionContainer
         return cacheCollection().size();
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether the collection is empty.
+     * @since Ant 1.10.0
+     */
+    public synchronized boolean isEmpty() {
+        if (isReference()) {
+            return getCheckedRef(BaseResourceCollectionContainer.class,
+                                 getDataTypeName()).isEmpty();
+        }
+        dieOnCircularReference();
+        return cacheCollection().isEmpty();
+    }
+
     /**
      * Fulfill the ResourceCollection contract.
      * @return whether this is a filesystem-only resource collection.
@@ -20,7 +20,9 @@ package org.apache.tools.ant.types.resources;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.tools.ant.BuildException;
@@ -46,18 +48,19 @@ public class Difference extends BaseResourceCollectionContainer {
                 + " resource collection" + ((size == 1) ? "" : "s")
                 + " is undefined.");
         }
-        Set<Resource> hs = new HashSet<Resource>();
-        List<Resource> al = new ArrayList<Resource>();
+        Set<ResourceKey> hs = new HashSet<ResourceKey>();
+        Map<ResourceKey, Resource> result = new LinkedHashMap<ResourceKey, Resource>();
         for (ResourceCollection rc : rcs) {
             for (Resource r : rc) {
-                if (hs.add(r)) {
-                    al.add(r);
+                ResourceKey k = new ResourceKey(r);
+                if (hs.add(k)) {
+                    result.put(k, r);
                 } else {
-                    al.remove(r);
+                    result.remove(k);
                 }
             }
         }
-        return al;
+        return new ArrayList<Resource>(result.values());
     }
 
 }
@@ -45,4 +45,19 @@ public class First extends SizeLimitCollection {
         return al;
     }
 
+    /**
+     * Efficient size implementation that only consumes the first
+     * <code>count</code> elements of the nested collection instead
+     * of asking it for its - potentially expensive - size.
+     * @return number of elements as int.
+     * @since Ant 1.10.0
+     */
+    public synchronized int size() {
+        if (isReference()) {
+            return ((First) getCheckedRef()).size();
+        }
+        dieOnCircularReference();
+        return getSize();
+    }
+
 }
@@ -17,10 +17,13 @@
  */
 package org.apache.tools.ant.types.resources;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.tools.ant.BuildException;
@@ -47,18 +50,24 @@ public class Intersect extends BaseResourceCollectionContainer {
                 + " is undefined.");
         }
         Iterator<ResourceCollection> rc = rcs.iterator();
-        Set<Resource> s = new LinkedHashSet<Resource>(collect(rc.next()));
-        while (rc.hasNext()) {
-            s.retainAll(collect(rc.next()));
+        Map<ResourceKey, Resource> s = new LinkedHashMap<ResourceKey, Resource>();
+        for (Resource r : rc.next()) {
+            ResourceKey k = new ResourceKey(r);
+            if (!s.containsKey(k)) {
+                s.put(k, r);
+            }
         }
-        return s;
-    }
-
-    private Set<Resource> collect(ResourceCollection rc) {
-        Set<Resource> result = new LinkedHashSet<Resource>();
-        for (Resource r : rc) {
-            result.add(r);
+        while (rc.hasNext() && !s.isEmpty()) {
+            // only remember what is part of the intersection so far
+            Set<ResourceKey> found = new HashSet<ResourceKey>();
+            for (Resource r : rc.next()) {
+                ResourceKey k = new ResourceKey(r);
+                if (s.containsKey(k)) {
+                    found.add(k);
+                }
+            }
+            s.keySet().retainAll(found);
         }
-        return result;
+        return new ArrayList<Resource>(s.values());
     }
 }
@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types.resources;
+
+import java.io.File;
+
+import org.apache.tools.ant.types.Resource;
+
+/**
+ * Wraps a Resource so it can be used as key in hash based
+ * collections without recomputing its hash code and - for plain
+ * file resources - its relative name on every comparison.
+ *
+ * <p>Two keys are equal if and only if their resources are
+ * equal.</p>
+ *
+ * @since Ant 1.10.0
+ */
+final class ResourceKey {
+
+    private final Resource resource;
+    private final int hash;
+    /** set for unreferenced instances of FileResource itself only */
+    private final File file;
+    private String name;
+
+    ResourceKey(Resource resource) {
+        this.resource = resource;
+        this.hash = resource.hashCode();
+        this.file = resource.getClass() == FileResource.class
+            && !resource.isReference()
+            ? ((FileResource) resource).getFile() : null;
+    }
+
+    /**
+     * The wrapped resource.
+     */
+    Resource getResource() {
+        return resource;
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ResourceKey)) {
+            return false;
+        }
+        ResourceKey k = (ResourceKey) other;
+        if (hash != k.hash) {
+            return false;
+        }
+        if (file != null && k.file != null) {
+            // what FileResource#equals does, but only computes the
+            // names once
+            return file.equals(k.file) && getName().equals(k.getName());
+        }
+        return resource.equals(k.resource);
+    }
+
+    private String getName() {
+        if (name == null) {
+            name = resource.getName();
+        }
+        return name;
+    }
+}
@@ -73,10 +73,19 @@ public class Resources extends DataType implements ResourceCollection {
         MyCollection() {
         }
         public int size() {
-            return getCache().size();
+            if (cache) {
+                return getCache().size();
+            }
+            int size = 0;
+            for (Iterator<Resource> i = new MyIterator(); i.hasNext(); i.next()) {
+                size++;
+            }
+            return size;
         }
         public Iterator<Resource> iterator() {
-            return getCache().iterator();
+            // without caching there is no need to collect the nested
+            // resources before handing out the first one
+            return cache ? getCache().iterator() : new MyIterator();
         }
         private synchronized Collection<Resource> getCache() {
             Collection<Resource> coll = cached;
@@ -183,6 +192,25 @@ public class Resources extends DataType implements ResourceCollection {
         return coll.size();
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether none of the nested collections contains any
+     * Resources.
+     * @since Ant 1.10.0
+     */
+    public synchronized boolean isEmpty() {
+        if (isReference()) {
+            return getRef().isEmpty();
+        }
+        validate();
+        for (ResourceCollection r : getNested()) {
+            if (!r.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Fulfill the ResourceCollection contract.
      * @return true if all Resources represent files.
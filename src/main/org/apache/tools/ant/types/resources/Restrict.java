@@ -116,6 +116,20 @@ public class Restrict
         return w.size();
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether no Resource is selected, stops at the first
+     * selected Resource.
+     * @since Ant 1.10.0
+     */
+    public synchronized boolean isEmpty() {
+        if (isReference()) {
+            return ((Restrict) getCheckedRef()).isEmpty();
+        }
+        dieOnCircularReference();
+        return w.isEmpty();
+    }
+
     /**
      * Fulfill the ResourceCollection contract.
      * @return whether this is a filesystem-only resource collection.
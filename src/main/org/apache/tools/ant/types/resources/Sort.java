@@ -17,8 +17,10 @@
  */
 package org.apache.tools.ant.types.resources;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
@@ -38,6 +40,9 @@ import org.apache.tools.ant.util.CollectionUtils;
  * Note that Sort must not be used in cases where the ordering of the objects
  * being sorted might change during the sorting process.
  *
+ * <p>If all comparators support sort keys, the key of each resource
+ * is computed once before sorting rather than once per comparison.</p>
+ *
  * @since Ant 1.7
  */
 public class Sort extends BaseResourceCollectionWrapper {
@@ -55,10 +60,31 @@ public class Sort extends BaseResourceCollectionWrapper {
             return Collections.emptySet();
         }
         List<Resource> result = (List<Resource>) CollectionUtils.asCollection(iter);
-        Collections.sort(result, comp);
+        if (comp.isSortKeySupported()) {
+            sortByKeys(result);
+        } else {
+            Collections.sort(result, comp);
+        }
         return result;
     }
 
+    private void sortByKeys(List<Resource> result) {
+        KeyedResource[] keyed = new KeyedResource[result.size()];
+        int i = 0;
+        for (Resource r : result) {
+            keyed[i++] = new KeyedResource(comp.getSortKey(r), r);
+        }
+        // like Collections.sort the sort is stable
+        Arrays.sort(keyed, new Comparator<KeyedResource>() {
+                public int compare(KeyedResource k1, KeyedResource k2) {
+                    return comp.compareSortKeys(k1.key, k2.key);
+                }
+            });
+        for (i = 0; i < keyed.length; i++) {
+            result.set(i, keyed[i].resource);
+        }
+    }
+
     /**
      * Add a ResourceComparator to this Sort ResourceCollection.
      * If multiple ResourceComparators are added, they will be processed in LIFO order.
@@ -95,4 +121,14 @@ public class Sort extends BaseResourceCollectionWrapper {
         }
     }
 
+    private static final class KeyedResource {
+        private final Object key;
+        private final Resource resource;
+
+        private KeyedResource(Object key, Resource resource) {
+            this.key = key;
+            this.resource = resource;
+        }
+    }
+
 }
@@ -20,8 +20,10 @@ package org.apache.tools.ant.types.resources;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.tools.ant.Project;
@@ -96,16 +98,34 @@ public class Union extends BaseResourceCollectionContainer {
         if (isReference()) {
             return getCheckedRef(Union.class, getDataTypeName()).listResources();
         }
-        final Collection<Resource> result = getAllResources();
+        final Collection<Resource> result = unify();
         return result.toArray(new Resource[result.size()]);
     }
 
+    /**
+     * Fulfill the ResourceCollection contract.
+     * @return whether all nested collections are empty - without
+     * unifying them.
+     * @since Ant 1.10.0
+     */
+    public synchronized boolean isEmpty() {
+        if (isReference()) {
+            return getCheckedRef(Union.class, getDataTypeName()).isEmpty();
+        }
+        for (ResourceCollection rc : getResourceCollections()) {
+            if (!rc.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Unify the contained Resources.
      * @return a Collection of Resources.
      */
     protected Collection<Resource> getCollection() {
-        return getAllResources();
+        return unify();
     }
 
     /**
@@ -117,7 +137,7 @@ public class Union extends BaseResourceCollectionContainer {
     @Deprecated
     @SuppressWarnings("unchecked")
     protected <T> Collection<T> getCollection(boolean asString) { // TODO untypable
-        return asString ? (Collection<T>) getAllToStrings() : (Collection<T>) getAllResources();
+        return asString ? (Collection<T>) getAllToStrings() : (Collection<T>) unify();
     }
 
     /**
@@ -125,7 +145,7 @@ public class Union extends BaseResourceCollectionContainer {
      * @return Collection<String>
      */
     protected Collection<String> getAllToStrings() {
-        final Set<Resource> allResources = getAllResources();
+        final Collection<Resource> allResources = unify();
         final ArrayList<String> result = new ArrayList<String>(allResources.size());
         for (Resource r : allResources) {
             result.add(r.toString());
@@ -138,18 +158,25 @@ public class Union extends BaseResourceCollectionContainer {
      * @return Set<Resource>
      */
     protected Set<Resource> getAllResources() {
+        return new LinkedHashSet<Resource>(unify());
+    }
+
+    /**
+     * Get the unified contained Resources in iteration order.
+     */
+    private Collection<Resource> unify() {
         final List<ResourceCollection> resourceCollections = getResourceCollections();
         if (resourceCollections.isEmpty()) {
             return Collections.emptySet();
         }
-        final LinkedHashSet<Resource> result = new LinkedHashSet<Resource>(
-                resourceCollections.size() * 2);
+        final Map<ResourceKey, Resource> result =
+            new LinkedHashMap<ResourceKey, Resource>(resourceCollections.size() * 2);
         for (ResourceCollection resourceCollection : resourceCollections) {
             for (Resource r : resourceCollection) {
-                result.add(r);
+                result.putIfAbsent(new ResourceKey(r), r);
             }
         }
-        return result;
+        return result.values();
     }
 
 }
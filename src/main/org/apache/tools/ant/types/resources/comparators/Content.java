@@ -18,9 +18,11 @@
 package org.apache.tools.ant.types.resources.comparators;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.types.Resource;
+import org.apache.tools.ant.util.FileUtils;
 import org.apache.tools.ant.util.ResourceUtils;
 
 /**
@@ -29,6 +31,12 @@ import org.apache.tools.ant.util.ResourceUtils;
  */
 public class Content extends ResourceComparator {
 
+    /**
+     * Number of bytes read into the sort key of a Resource in binary
+     * mode.
+     */
+    private static final int PREFIX_LENGTH = 256;
+
     private boolean binary = true;
 
     /**
@@ -67,4 +75,116 @@ public class Content extends ResourceComparator {
         }
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Remembers the Resource's state and in binary mode the first
+     * bytes of its content so that most comparisons don't need to
+     * read the Resource again.
+     * @param r the Resource
+     * @return the sort key
+     * @throws BuildException if I/O errors occur.
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        try {
+            return new ContentKey(r, binary);
+        } catch (IOException e) {
+            throw new BuildException(e);
+        }
+    }
+
+    /**
+     * Compares two sort keys the same way {@link
+     * ResourceUtils#compareContent} compares their Resources, only
+     * reads the Resources if the first bytes don't decide.
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @throws BuildException if I/O errors occur.
+     * @since Ant 1.10.0
+     */
+    protected int sortKeyCompare(Object foo, Object bar) {
+        ContentKey k1 = (ContentKey) foo;
+        ContentKey k2 = (ContentKey) bar;
+        if (k1.resource.equals(k2.resource)) {
+            return 0;
+        }
+        if (!(k1.exists || k2.exists)) {
+            return 0;
+        }
+        if (k1.exists != k2.exists) {
+            return k1.exists ? 1 : -1;
+        }
+        if (k1.directory && k2.directory) {
+            return 0;
+        }
+        if (k1.directory || k2.directory) {
+            return k1.directory ? -1 : 1;
+        }
+        if (k1.prefix != null && k2.prefix != null) {
+            int n = Math.min(k1.prefix.length, k2.prefix.length);
+            for (int i = 0; i < n; i++) {
+                int b1 = k1.prefix[i] & 0xff;
+                int b2 = k2.prefix[i] & 0xff;
+                if (b1 != b2) {
+                    return b1 > b2 ? 1 : -1;
+                }
+            }
+            if (k1.complete && k2.complete) {
+                return k1.prefix.length == k2.prefix.length ? 0
+                    : k1.prefix.length > k2.prefix.length ? 1 : -1;
+            }
+            if (k1.complete || k2.complete) {
+                // the complete one is a prefix of the other
+                return k1.complete ? -1 : 1;
+            }
+        }
+        return resourceCompare(k1.resource, k2.resource);
+    }
+
+    private static final class ContentKey {
+        private final Resource resource;
+        private final boolean exists;
+        private final boolean directory;
+        /** first bytes of the content, null in text mode */
+        private byte[] prefix;
+        /** whether prefix holds the whole content */
+        private boolean complete;
+
+        private ContentKey(Resource r, boolean binary) throws IOException {
+            resource = r;
+            exists = r.isExists();
+            directory = exists && r.isDirectory();
+            if (binary && exists && !directory) {
+                readPrefix();
+            }
+        }
+
+        private void readPrefix() throws IOException {
+            byte[] buf = new byte[PREFIX_LENGTH + 1];
+            int len = 0;
+            InputStream in = resource.getInputStream();
+            try {
+                for (int n = 0; n != -1 && len < buf.length;
+                     n = in.read(buf, len, buf.length - len)) {
+                    len += n;
+                }
+            } finally {
+                FileUtils.close(in);
+            }
+            complete = len <= PREFIX_LENGTH;
+            prefix = new byte[complete ? len : PREFIX_LENGTH];
+            System.arraycopy(buf, 0, prefix, 0, prefix.length);
+        }
+    }
+
 }
@@ -42,4 +42,23 @@ public class Date extends ResourceComparator {
         }
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Uses the last modification time as sort key.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        return Long.valueOf(r.getLastModified());
+    }
+
 }
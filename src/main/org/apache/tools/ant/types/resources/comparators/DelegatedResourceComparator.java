@@ -96,6 +96,61 @@ public class DelegatedResourceComparator extends ResourceComparator {
         return result;
     }
 
+    /**
+     * Sort keys are supported if all nested comparators support them.
+     * @return whether sort keys are supported.
+     * @since Ant 1.10.0
+     */
+    protected synchronized boolean supportsSortKeys() {
+        if (resourceComparators != null) {
+            for (ResourceComparator c : resourceComparators) {
+                if (!c.isSortKeySupported()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combines the sort keys of all nested comparators - or uses the
+     * Resource itself if there are none.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected synchronized Object createSortKey(Resource r) {
+        if (resourceComparators == null || resourceComparators.isEmpty()) {
+            return r;
+        }
+        Object[] keys = new Object[resourceComparators.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = resourceComparators.get(i).getSortKey(r);
+        }
+        return keys;
+    }
+
+    /**
+     * Compares the sort keys of the nested comparators in turn.
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @since Ant 1.10.0
+     */
+    protected synchronized int sortKeyCompare(Object foo, Object bar) {
+        if (resourceComparators == null || resourceComparators.isEmpty()) {
+            return super.sortKeyCompare(foo, bar);
+        }
+        Object[] k1 = (Object[]) foo;
+        Object[] k2 = (Object[]) bar;
+        int result = 0;
+        for (int i = 0; result == 0 && i < k1.length; i++) {
+            result = resourceComparators.get(i).compareSortKeys(k1[i], k2[i]);
+        }
+        return result;
+    }
+
     /**
      * Overrides the version from DataType to recurse on nested ResourceSelector
 s.
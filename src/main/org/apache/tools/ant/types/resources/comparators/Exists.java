@@ -40,4 +40,23 @@ public class Exists extends ResourceComparator {
         return f ? 1 : -1;
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Uses whether the Resource exists as sort key.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        return Boolean.valueOf(r.isExists());
+    }
+
 }
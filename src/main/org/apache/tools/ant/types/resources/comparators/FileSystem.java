@@ -57,4 +57,62 @@ public class FileSystem extends ResourceComparator {
                 FILE_UTILS.normalize(barfile.getAbsolutePath()));
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Uses the file and its normalized form as sort key.
+     * @param r the Resource
+     * @return the sort key
+     * @throws ClassCastException if the resource doesn't provide a file.
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        FileProvider fp = r.as(FileProvider.class);
+        if (fp == null) {
+            throw new ClassCastException(r.getClass()
+                                         + " doesn't provide files");
+        }
+        File f = fp.getFile();
+        return new File[] {f, FILE_UTILS.normalize(f.getAbsolutePath())};
+    }
+
+    /**
+     * Compares two sort keys like {@link #resourceCompare} compares
+     * Resources.
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @since Ant 1.10.0
+     */
+    protected int sortKeyCompare(Object foo, Object bar) {
+        File[] k1 = (File[]) foo;
+        File[] k2 = (File[]) bar;
+        return k1[0].equals(k2[0]) ? 0
+            : isLeadingPath(k1[1], k2[1]) ? -1
+            : k1[1].compareTo(k2[1]);
+    }
+
+    /**
+     * FileUtils.isLeadingPath for already normalized files.
+     */
+    private static boolean isLeadingPath(File leading, File path) {
+        String l = leading.getAbsolutePath();
+        String p = path.getAbsolutePath();
+        if (l.equals(p)) {
+            return true;
+        }
+        if (!l.endsWith(File.separator)) {
+            l += File.separator;
+        }
+        return p.startsWith(l);
+    }
+
 }
@@ -35,4 +35,23 @@ public class Name extends ResourceComparator {
         return foo.getName().compareTo(bar.getName());
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Uses the name as sort key.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        return r.getName();
+    }
+
 }
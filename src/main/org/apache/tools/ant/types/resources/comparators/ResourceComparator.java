@@ -78,4 +78,83 @@ public abstract class ResourceComparator extends DataType implements Comparator<
      */
     protected abstract int resourceCompare(Resource foo, Resource bar);
 
+    /**
+     * Whether this comparator can compare Resources via sort keys
+     * that are computed only once per Resource.
+     * @return true if {@link #getSortKey} and {@link
+     * #compareSortKeys} can be used instead of {@link #compare}.
+     * @since Ant 1.10.0
+     */
+    public final boolean isSortKeySupported() {
+        return getComparator().supportsSortKeys();
+    }
+
+    /**
+     * Extracts everything this comparator needs to know about a
+     * Resource.
+     * @param r the Resource
+     * @return the sort key for the Resource
+     * @throws UnsupportedOperationException if {@link
+     * #isSortKeySupported} returns false
+     * @since Ant 1.10.0
+     */
+    public final Object getSortKey(Resource r) {
+        return getComparator().createSortKey(r);
+    }
+
+    /**
+     * Compares two sort keys, the result must be consistent with
+     * comparing the Resources they have been created for.
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @since Ant 1.10.0
+     */
+    public final int compareSortKeys(Object foo, Object bar) {
+        return getComparator().sortKeyCompare(foo, bar);
+    }
+
+    /**
+     * Whether the implementation overrides {@link #createSortKey}.
+     * @return false
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return false;
+    }
+
+    /**
+     * Creates the sort key for a Resource.
+     * @param r the Resource
+     * @return the sort key, this implementation throws an
+     * UnsupportedOperationException
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        throw new UnsupportedOperationException(getClass().getName()
+                                                + " doesn't support sort keys");
+    }
+
+    /**
+     * Compares two sort keys.
+     *
+     * <p>This implementation assumes the keys are mutually
+     * Comparable.</p>
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @since Ant 1.10.0
+     */
+    @SuppressWarnings("unchecked")
+    protected int sortKeyCompare(Object foo, Object bar) {
+        return ((Comparable<Object>) foo).compareTo(bar);
+    }
+
+    private ResourceComparator getComparator() {
+        dieOnCircularReference();
+        return isReference() ? (ResourceComparator) getCheckedRef() : this;
+    }
+
 }
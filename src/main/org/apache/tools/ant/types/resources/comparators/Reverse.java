@@ -73,6 +73,39 @@ public class Reverse extends ResourceComparator {
             ? foo.compareTo(bar) : nested.compare(foo, bar));
     }
 
+    /**
+     * Sort keys are supported if the nested comparator supports them.
+     * @return whether sort keys are supported.
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return nested == null || nested.isSortKeySupported();
+    }
+
+    /**
+     * Uses the nested comparator's sort key - or the Resource itself
+     * if there is no nested comparator.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        return nested == null ? r : nested.getSortKey(r);
+    }
+
+    /**
+     * Reverses the order of the nested comparator's sort keys.
+     * @param foo the sort key of the first Resource.
+     * @param bar the sort key of the second Resource.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         argument is less than, equal to, or greater than the second.
+     * @since Ant 1.10.0
+     */
+    protected int sortKeyCompare(Object foo, Object bar) {
+        return -1 * (nested == null
+            ? super.sortKeyCompare(foo, bar) : nested.compareSortKeys(foo, bar));
+    }
+
     protected void dieOnCircularReference(Stack<Object> stk, Project p)
         throws BuildException {
         if (isChecked()) {
@@ -36,4 +36,23 @@ public class Size extends ResourceComparator {
         return diff > 0 ? 1 : (diff == 0 ? 0 : -1);
     }
 
+    /**
+     * Sort keys are supported.
+     * @return true
+     * @since Ant 1.10.0
+     */
+    protected boolean supportsSortKeys() {
+        return true;
+    }
+
+    /**
+     * Uses the size as sort key.
+     * @param r the Resource
+     * @return the sort key
+     * @since Ant 1.10.0
+     */
+    protected Object createSortKey(Resource r) {
+        return Long.valueOf(r.getSize());
+    }
+
 }
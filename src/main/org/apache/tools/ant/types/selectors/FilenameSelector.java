@@ -50,6 +50,7 @@ public class FilenameSelector extends BaseExtendSelector {
     // caches for performance reasons
     private RegularExpression reg;
     private Regexp expression;
+    private TokenizedPattern tokenizedPattern;
 
     /**
      * Creates a new <code>FilenameSelector</code> instance.
@@ -89,6 +90,7 @@ public class FilenameSelector extends BaseExtendSelector {
             pattern += "**";
         }
         this.pattern = pattern;
+        this.tokenizedPattern = null;
     }
 
     /**
@@ -178,8 +180,11 @@ public class FilenameSelector extends BaseExtendSelector {
     public boolean isSelected(File basedir, String filename, File file) {
         validate();
         if (pattern != null) {
-            return (SelectorUtils.matchPath(pattern, filename,
-                                            casesensitive) == !(negated));
+            if (tokenizedPattern == null) {
+                tokenizedPattern = new TokenizedPattern(pattern);
+            }
+            return (tokenizedPattern.matchPath(new TokenizedPath(filename),
+                                               casesensitive) == !(negated));
         } else {
             if (reg == null) {
                 reg = new RegularExpression();
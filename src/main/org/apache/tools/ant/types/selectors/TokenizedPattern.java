@@ -103,6 +103,13 @@ public class TokenizedPattern {
         return pattern.hashCode();
     }
 
+    /**
+     * The tokens of the pattern.
+     */
+    /* package */ String[] getTokens() {
+        return tokenizedPattern;
+    }
+
     /**
      * The depth (or length) of a pattern.
      */
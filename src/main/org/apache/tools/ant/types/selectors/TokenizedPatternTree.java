@@ -0,0 +1,219 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types.selectors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches paths against many patterns at once.
+ *
+ * <p>The patterns are merged into a tree over their path segments so
+ * patterns sharing a common prefix - like <code>src/main/**</code>
+ * and <code>src/main/org/*.java</code> - share the nodes for it.
+ * <code>**</code> becomes a node that consumes any number of
+ * segments.  A path is matched by walking the tree once, segment by
+ * segment, keeping track of all nodes that can be reached so far,
+ * instead of matching it against each pattern in turn.</p>
+ *
+ * <p>Segments without wildcards are looked up in a hash map, only
+ * segments containing <code>*</code> or <code>?</code> need to be
+ * matched one by one.</p>
+ *
+ * <p>Instances are immutable once constructed and can be shared
+ * between threads.</p>
+ *
+ * @see TokenizedPattern
+ * @since Ant 1.10.0
+ */
+public class TokenizedPatternTree {
+
+    private final Node root = new Node(false);
+    private final boolean caseSensitive;
+    private final boolean empty;
+
+    /**
+     * Builds the tree for the given patterns.
+     *
+     * @param patterns the patterns
+     * @param caseSensitive whether matching should be performed case
+     * sensitively
+     */
+    public TokenizedPatternTree(TokenizedPattern[] patterns, boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+        for (int i = 0; i < patterns.length; i++) {
+            add(patterns[i].getTokens());
+        }
+        empty = patterns.length == 0;
+    }
+
+    /**
+     * Whether the tree has been built from an empty list of patterns.
+     * @return true if no path can match
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Tests whether a path matches any of the patterns.
+     *
+     * @param path the path
+     * @return true if at least one pattern matches the path
+     * @see TokenizedPattern#matchPath
+     */
+    public boolean matchPath(TokenizedPath path) {
+        if (empty) {
+            return false;
+        }
+        final List<Node> reached = walk(path.getTokens());
+        for (int i = 0; i < reached.size(); i++) {
+            if (reached.get(i).terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests whether any of the patterns matches the start of a path.
+     *
+     * @param path the path
+     * @return true if at least one pattern could match the path or
+     * one of its children
+     * @see TokenizedPattern#matchStartOf
+     */
+    public boolean matchStartOf(TokenizedPath path) {
+        return !empty && !walk(path.getTokens()).isEmpty();
+    }
+
+    /**
+     * All nodes reachable after consuming the given tokens.
+     */
+    private List<Node> walk(String[] tokens) {
+        List<Node> current = new ArrayList<Node>(4);
+        reach(current, root);
+        for (int t = 0; t < tokens.length && !current.isEmpty(); t++) {
+            final String token = tokens[t];
+            final String key = caseSensitive ? token : fold(token);
+            final List<Node> next = new ArrayList<Node>(4);
+            for (int i = 0; i < current.size(); i++) {
+                final Node n = current.get(i);
+                if (n.deep) {
+                    // ** consumes the token and stays where it is
+                    reach(next, n);
+                }
+                if (n.literalChildren != null) {
+                    final Node c = n.literalChildren.get(key);
+                    if (c != null) {
+                        reach(next, c);
+                    }
+                }
+                if (n.wildcardChildren != null) {
+                    for (final Map.Entry<String, Node> e : n.wildcardChildren.entrySet()) {
+                        if (SelectorUtils.match(e.getKey(), token, caseSensitive)) {
+                            reach(next, e.getValue());
+                        }
+                    }
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Adds a node and - as ** may match zero segments - the ** node
+     * following it.
+     */
+    private static void reach(List<Node> nodes, Node n) {
+        for (Node c = n; c != null; c = c.deepChild) {
+            if (!nodes.contains(c)) {
+                nodes.add(c);
+            }
+        }
+    }
+
+    private void add(String[] tokens) {
+        Node n = root;
+        for (int i = 0; i < tokens.length; i++) {
+            final String token = tokens[i];
+            if (SelectorUtils.DEEP_TREE_MATCH.equals(token)) {
+                if (n.deep) {
+                    // **/** is the same as **
+                    continue;
+                }
+                if (n.deepChild == null) {
+                    n.deepChild = new Node(true);
+                }
+                n = n.deepChild;
+            } else if (SelectorUtils.hasWildcards(token)) {
+                if (n.wildcardChildren == null) {
+                    n.wildcardChildren = new LinkedHashMap<String, Node>();
+                }
+                n = child(n.wildcardChildren, token);
+            } else {
+                if (n.literalChildren == null) {
+                    n.literalChildren = new HashMap<String, Node>();
+                }
+                n = child(n.literalChildren, caseSensitive ? token : fold(token));
+            }
+        }
+        n.terminal = true;
+    }
+
+    private static Node child(Map<String, Node> children, String key) {
+        Node c = children.get(key);
+        if (c == null) {
+            c = new Node(false);
+            children.put(key, c);
+        }
+        return c;
+    }
+
+    /**
+     * Maps all characters SelectorUtils considers equal when not
+     * matching case sensitively to the same character.
+     */
+    private static String fold(String s) {
+        final char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /** A position inside of one or more patterns. */
+    private static final class Node {
+        /** whether the node stands for a ** segment */
+        private final boolean deep;
+        /** whether a pattern ends here */
+        private boolean terminal;
+        /** the node for a ** following this node */
+        private Node deepChild;
+        private Map<String, Node> literalChildren;
+        private Map<String, Node> wildcardChildren;
+
+        private Node(boolean deep) {
+            this.deep = deep;
+        }
+    }
+}
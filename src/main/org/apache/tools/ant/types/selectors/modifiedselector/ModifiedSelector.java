@@ -149,6 +149,9 @@ public class ModifiedSelector extends BaseExtendSelector
     private static final String ALGORITHM_PREFIX = "algorithm.";
     private static final String COMPARATOR_PREFIX = "comparator.";
 
+    /** Separates the size, the timestamp and the value in a cache entry. */
+    private static final char STAT_SEPARATOR = ':';
+
 
     // -----  attributes  -----
 
@@ -186,6 +189,12 @@ public class ModifiedSelector extends BaseExtendSelector
     /** Delay the writing of the cache file */
     private boolean delayUpdate = true;
 
+    /**
+     * Should size and timestamp be stored next to the value and only
+     * files with changed size or timestamp be passed to the algorithm?
+     */
+    private boolean statPrefilter = false;
+
 
     // ----- internal member variables -----
 
@@ -499,6 +508,10 @@ public class ModifiedSelector extends BaseExtendSelector
             return selectDirectories;
         }
 
+        if (statPrefilter) {
+            return isSelectedUsingStat(f);
+        }
+
         // Get the values and do the comparison
         String cachedValue = String.valueOf(cache.get(f.getAbsolutePath()));
         String newValue = algorithm.getValue(f);
@@ -507,17 +520,102 @@ public class ModifiedSelector extends BaseExtendSelector
 
         // Maybe update the cache
         if (update && rv) {
-            cache.put(f.getAbsolutePath(), newValue);
-            setModified(getModified() + 1);
-            if (!getDelayUpdate()) {
-                saveCache();
+            updateCache(f, newValue);
+        }
+
+        return rv;
+    }
+
+
+    /**
+     * The business logic if the stat prefilter is enabled.
+     * The cache holds entries of the form <i>size:lastModified:value</i>.
+     * If size and timestamp of the file match the cached ones the file
+     * is regarded as unchanged and the algorithm is not invoked at all,
+     * otherwise the new value is computed and compared with the cached
+     * one. A file that only has been touched is not selected but its
+     * cache entry is refreshed so the next run can skip it again.
+     *
+     * <p>Like git's handling of racy stat data, the stat prefix is
+     * not stored if the file has been modified within the timestamp
+     * granularity of the file system before the entry gets written.
+     * The file could be changed again without changing size or
+     * timestamp, so the next run has to compute the value.</p>
+     *
+     * @param f the file to check
+     * @return <tt>true</tt> if the file is selected otherwise <tt>false</tt>
+     */
+    private boolean isSelectedUsingStat(File f) {
+        long lastModified = f.lastModified();
+        String stat = f.length() + String.valueOf(STAT_SEPARATOR) + lastModified;
+        Object cachedEntry = cache.get(f.getAbsolutePath());
+        String cachedValue = String.valueOf(cachedEntry);
+        if (cachedEntry != null) {
+            int valueStart = valueIndex(cachedValue);
+            if (valueStart > 0) {
+                if (stat.equals(cachedValue.substring(0, valueStart - 1))) {
+                    // size and timestamp unchanged - no need to read the file
+                    return false;
+                }
+                cachedValue = cachedValue.substring(valueStart);
             }
+            // else: entry written without the prefilter, compare the whole value
+        }
+
+        String newValue = algorithm.getValue(f);
+        boolean rv = (comparator.compare(cachedValue, newValue) != 0);
+
+        // Maybe update the cache - also if only the stat data has changed
+        if (update && newValue != null) {
+            boolean racy = lastModified >= System.currentTimeMillis()
+                - FileUtils.getFileUtils().getFileTimestampGranularity();
+            updateCache(f, racy ? newValue : stat + STAT_SEPARATOR + newValue);
         }
 
         return rv;
     }
 
 
+    /**
+     * Finds the start of the algorithm value inside a cache entry written
+     * with the stat prefilter enabled.
+     * @param entry the cached entry
+     * @return the index of the value or -1 if the entry has no stat prefix
+     */
+    private static int valueIndex(String entry) {
+        int sizeEnd = entry.indexOf(STAT_SEPARATOR);
+        if (sizeEnd <= 0) {
+            return -1;
+        }
+        int timeEnd = entry.indexOf(STAT_SEPARATOR, sizeEnd + 1);
+        if (timeEnd <= sizeEnd + 1) {
+            return -1;
+        }
+        for (int i = 0; i < timeEnd; i++) {
+            char c = entry.charAt(i);
+            if (i != sizeEnd && !Character.isDigit(c)) {
+                return -1;
+            }
+        }
+        return timeEnd + 1;
+    }
+
+
+    /**
+     * Stores a new value for a file and saves the cache if the update
+     * should not be delayed.
+     * @param f the file
+     * @param value the new value
+     */
+    private void updateCache(File f, String value) {
+        cache.put(f.getAbsolutePath(), value);
+        setModified(getModified() + 1);
+        if (!getDelayUpdate()) {
+            saveCache();
+        }
+    }
+
+
    /**
     * save the cache file
     */
@@ -622,6 +720,29 @@ public class ModifiedSelector extends BaseExtendSelector
     }
 
 
+    /**
+     * Getter for the stat prefilter
+     * @return true if size and timestamp are checked before the algorithm
+     * @since Ant 1.10.0
+     */
+    public boolean getStatPrefilter() {
+        return statPrefilter;
+    }
+
+
+    /**
+     * Support for <i>statprefilter</i> attribute.
+     * If set, the size and the modification time of each file are stored
+     * together with the computed value and the (expensive) algorithm is
+     * only invoked for files where one of them has changed.
+     * @param statPrefilter true if the stat data should be checked first
+     * @since Ant 1.10.0
+     */
+    public void setStatPrefilter(boolean statPrefilter) {
+        this.statPrefilter = statPrefilter;
+    }
+
+
     /**
      * Add the classpath.
      * @param path the classpath
@@ -742,6 +863,12 @@ public class ModifiedSelector extends BaseExtendSelector
                 ? true
                 : false;
             setDelayUpdate(updateValue);
+        } else if ("statprefilter".equals(key)) {
+            boolean spValue =
+                ("true".equalsIgnoreCase(value))
+                ? true
+                : false;
+            setStatPrefilter(spValue);
         } else if ("seldirs".equals(key)) {
             boolean sdValue =
                 ("true".equalsIgnoreCase(value))
@@ -793,6 +920,7 @@ public class ModifiedSelector extends BaseExtendSelector
         StringBuffer buf = new StringBuffer("{modifiedselector");
         buf.append(" update=").append(update);
         buf.append(" seldirs=").append(selectDirectories);
+        buf.append(" statprefilter=").append(statPrefilter);
         buf.append(" cache=").append(cache);
         buf.append(" algorithm=").append(algorithm);
         buf.append(" comparator=").append(comparator);
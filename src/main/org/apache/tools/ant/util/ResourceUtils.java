@@ -23,6 +23,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -33,6 +34,7 @@ import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Vector;
 
+import org.apache.tools.ant.Metrics;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.ProjectComponent;
 import org.apache.tools.ant.filters.util.ChainReaderHelper;
@@ -182,12 +184,14 @@ public class ResourceUtils {
                                                    final FileNameMapper mapper,
                                                    final ResourceFactory targets,
                                                    final ResourceSelectorProvider selector) {
-        if (source.size() == 0) {
+        if (source.isEmpty()) {
             logTo.log("No sources found.", Project.MSG_VERBOSE);
             return Resources.NONE;
         }
         source = Union.getInstance(source);
 
+        final boolean verbose = logTo.getProject() == null
+            || logTo.getProject().isLoggable(Project.MSG_VERBOSE);
         final Union result = new Union();
         for (final Resource sr : source) {
             String srName = sr.getName();
@@ -202,8 +206,10 @@ public class ResourceUtils {
                     Project.MSG_VERBOSE);
             }
             if (targetnames == null || targetnames.length == 0) {
-                logTo.log(sr + " skipped - don\'t know how to handle it",
-                      Project.MSG_VERBOSE);
+                if (verbose) {
+                    logTo.log(sr + " skipped - don\'t know how to handle it",
+                              Project.MSG_VERBOSE);
+                }
                 continue;
             }
             for (int i = 0; i < targetnames.length; i++) {
@@ -220,19 +226,23 @@ public class ResourceUtils {
             final Restrict r = new Restrict();
             r.add(selector.getTargetSelectorForSource(sr));
             r.add(targetColl);
-            if (r.size() > 0) {
+            if (!r.isEmpty()) {
                 result.add(sr);
-                final Resource t = r.iterator().next();
-                logTo.log(sr.getName() + " added as " + t.getName()
-                    + (t.isExists() ? " is outdated." : " doesn\'t exist."),
-                    Project.MSG_VERBOSE);
+                if (verbose) {
+                    final Resource t = r.iterator().next();
+                    logTo.log(sr.getName() + " added as " + t.getName()
+                        + (t.isExists() ? " is outdated." : " doesn\'t exist."),
+                        Project.MSG_VERBOSE);
+                }
                 continue;
             }
             //log uptodateness of all targets:
-            logTo.log(sr.getName()
-                  + " omitted as " + targetColl.toString()
-                  + (targetColl.size() == 1 ? " is" : " are ")
-                  + " up to date.", Project.MSG_VERBOSE);
+            if (verbose) {
+                logTo.log(sr.getName()
+                      + " omitted as " + targetColl.toString()
+                      + (targetColl.size() == 1 ? " is" : " are ")
+                      + " up to date.", Project.MSG_VERBOSE);
+            }
         }
         return result;
     }
@@ -412,28 +422,29 @@ public class ResourceUtils {
             }
         }
 
+        long copiedBytes;
         if (filterSetsAvailable) {
-            copyWithFilterSets(source, dest, filters, filterChains,
-                               filterChainsAvailable, append,
-                               effectiveInputEncoding, outputEncoding,
-                               project);
+            copiedBytes = copyWithFilterSets(source, dest, filters, filterChains,
+                                             filterChainsAvailable, append,
+                                             effectiveInputEncoding, outputEncoding,
+                                             project);
         } else if (filterChainsAvailable
                    || (effectiveInputEncoding != null
                        && !effectiveInputEncoding.equals(outputEncoding))
                    || (effectiveInputEncoding == null && outputEncoding != null)) {
-            copyWithFilterChainsOrTranscoding(source, dest, filterChains,
-                                              filterChainsAvailable, append,
-                                              effectiveInputEncoding,
-                                              outputEncoding, project);
+            copiedBytes =
+                copyWithFilterChainsOrTranscoding(source, dest, filterChains,
+                                                  filterChainsAvailable, append,
+                                                  effectiveInputEncoding,
+                                                  outputEncoding, project);
         } else {
-            boolean copied = false;
+            copiedBytes = -1;
             if (source.as(FileProvider.class) != null
                 && destFile != null && !append) {
                 final File sourceFile =
                     source.as(FileProvider.class).getFile();
                 try {
-                    copyUsingFileChannels(sourceFile, destFile);
-                    copied = true;
+                    copiedBytes = copyUsingFileChannels(sourceFile, destFile);
                 } catch (final IOException ex) {
                     String msg = "Attempt to copy " + sourceFile
                         + " to " + destFile + " using NIO Channels"
@@ -446,10 +457,11 @@ public class ResourceUtils {
                     }
                 }
             }
-            if (!copied) {
-                copyUsingStreams(source, dest, append, project);
+            if (copiedBytes == -1) {
+                copiedBytes = copyUsingStreams(source, dest, append, project);
             }
         }
+        Metrics.BYTES_COPIED.add(copiedBytes);
         if (preserveLastModified) {
             final Touchable t = dest.as(Touchable.class);
             if (t != null) {
@@ -658,7 +670,7 @@ public class ResourceUtils {
         }
     }
 
-    private static void copyWithFilterSets(final Resource source, final Resource dest,
+    private static long copyWithFilterSets(final Resource source, final Resource dest,
                                            final FilterSetCollection filters,
                                            final Vector filterChains,
                                            final boolean filterChainsAvailable,
@@ -668,6 +680,7 @@ public class ResourceUtils {
         throws IOException {
         BufferedReader in = null;
         BufferedWriter out = null;
+        CountingOutputStream counter = null;
         try {
             InputStreamReader isr = null;
             if (inputEncoding == null) {
@@ -677,7 +690,8 @@ public class ResourceUtils {
                                             inputEncoding);
             }
             in = new BufferedReader(isr);
-            final OutputStream os = getOutputStream(dest, append, project);
+            counter = new CountingOutputStream(getOutputStream(dest, append, project));
+            final OutputStream os = counter;
             OutputStreamWriter osw;
             if (outputEncoding == null) {
                 osw = new OutputStreamWriter(os);
@@ -709,13 +723,15 @@ public class ResourceUtils {
                 }
                 line = lineTokenizer.getToken(in);
             }
+            out.flush();
+            return counter.getCount();
         } finally {
             FileUtils.close(out);
             FileUtils.close(in);
         }
     }
 
-    private static void copyWithFilterChainsOrTranscoding(final Resource source,
+    private static long copyWithFilterChainsOrTranscoding(final Resource source,
                                                           final Resource dest,
                                                           final Vector filterChains,
                                                           final boolean filterChainsAvailable,
@@ -726,6 +742,7 @@ public class ResourceUtils {
         throws IOException {
         BufferedReader in = null;
         BufferedWriter out = null;
+        CountingOutputStream counter = null;
         try {
             InputStreamReader isr = null;
             if (inputEncoding == null) {
@@ -735,7 +752,8 @@ public class ResourceUtils {
                                             inputEncoding);
             }
             in = new BufferedReader(isr);
-            final OutputStream os = getOutputStream(dest, append, project);
+            counter = new CountingOutputStream(getOutputStream(dest, append, project));
+            final OutputStream os = counter;
             OutputStreamWriter osw;
             if (outputEncoding == null) {
                 osw = new OutputStreamWriter(os);
@@ -760,13 +778,15 @@ public class ResourceUtils {
                 }
                 out.write(buffer, 0, nRead);
             }
+            out.flush();
+            return counter.getCount();
         } finally {
             FileUtils.close(out);
             FileUtils.close(in);
         }
     }
 
-    private static void copyUsingFileChannels(final File sourceFile,
+    private static long copyUsingFileChannels(final File sourceFile,
                                               final File destFile)
         throws IOException {
 
@@ -796,6 +816,7 @@ public class ResourceUtils {
                 position +=
                     destChannel.transferFrom(srcChannel, position, chunk);
             }
+            return position;
         } finally {
             FileUtils.close(srcChannel);
             FileUtils.close(destChannel);
@@ -804,7 +825,7 @@ public class ResourceUtils {
         }
     }
 
-    private static void copyUsingStreams(final Resource source, final Resource dest,
+    private static long copyUsingStreams(final Resource source, final Resource dest,
                                          final boolean append, final Project project)
         throws IOException {
         InputStream in = null;
@@ -814,11 +835,14 @@ public class ResourceUtils {
             out = getOutputStream(dest, append, project);
 
             final byte[] buffer = new byte[FileUtils.BUF_SIZE];
+            long total = 0;
             int count = 0;
             do {
                 out.write(buffer, 0, count);
+                total += count;
                 count = in.read(buffer, 0, buffer.length);
             } while (count != -1);
+            return total;
         } finally {
             FileUtils.close(out);
             FileUtils.close(in);
@@ -843,6 +867,34 @@ public class ResourceUtils {
         return resource.getOutputStream();
     }
 
+    /**
+     * Counts the bytes written to the wrapped stream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+            throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
     public interface ResourceSelectorProvider {
         ResourceSelector getTargetSelectorForSource(Resource source);
     }
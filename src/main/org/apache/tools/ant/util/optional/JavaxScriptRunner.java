@@ -20,12 +20,20 @@ package org.apache.tools.ant.util.optional;
 
 import java.util.Iterator;
 
+import javax.script.ScriptException;
+
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.util.ReflectWrapper;
 import org.apache.tools.ant.util.ScriptRunnerBase;
 
 /**
  * This class is used to run scripts using JSR 223.
+ *
+ * <p>Unless the engine is kept or the project's property {@link
+ * org.apache.tools.ant.MagicNames#SCRIPT_CACHE ant.scriptcache} has
+ * been set to false, engines and compiled scripts are shared with all
+ * other runners of the project that use the same language and
+ * classloader.</p>
  * @since Ant 1.7.0
  */
 public class JavaxScriptRunner extends ScriptRunnerBase {
@@ -79,6 +87,11 @@ public class JavaxScriptRunner extends ScriptRunnerBase {
         checkLanguage();
         ClassLoader origLoader = replaceContextLoader();
         try {
+            ScriptEngineCache cache = getKeepEngine() ? null
+                : ScriptEngineCache.getCache(getProject());
+            if (cache != null) {
+                return evaluateCached(cache);
+            }
             ReflectWrapper engine = createEngine();
             if (engine == null) {
                 throw new BuildException(
@@ -126,6 +139,17 @@ public class JavaxScriptRunner extends ScriptRunnerBase {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private Object evaluateCached(ScriptEngineCache cache) {
+        try {
+            return cache.evaluate(getScriptClassLoader(), getLanguage(),
+                                  getScript(), getBeans());
+        } catch (ScriptException ex) {
+            BuildException be = unwrap(ex);
+            throw be != null ? be : new BuildException(ex);
+        }
+    }
+
     private ReflectWrapper createEngine() throws Exception {
         if (engine != null) {
             return engine;
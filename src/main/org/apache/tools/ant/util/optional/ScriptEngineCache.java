@@ -0,0 +1,178 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.util.optional;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+
+/**
+ * Shares JSR 223 script engines and compiled scripts between all
+ * script runners of a project that use the same language and
+ * classloader.
+ *
+ * <p>Every evaluation gets a fresh set of engine scope bindings so
+ * beans and variables defined by one evaluation are not visible to
+ * the next one.  Engines that don't declare themselves thread-safe
+ * are only used by one thread at a time.</p>
+ *
+ * @since Ant 1.10.0
+ */
+final class ScriptEngineCache {
+
+    /** maximum number of engines remembered per project */
+    private static final int MAX_ENGINES = 50;
+
+    /** maximum number of compiled scripts remembered per engine */
+    private static final int MAX_SCRIPTS = 100;
+
+    private final Map<List<Object>, Entry> entries =
+        new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> e) {
+                return size() > MAX_ENGINES;
+            }
+        };
+
+    private ScriptEngineCache() {
+    }
+
+    /**
+     * Obtains the cache of a project.
+     *
+     * @param p the project
+     * @return the cache or null if p is null or caching has been
+     * disabled.
+     */
+    static ScriptEngineCache getCache(Project p) {
+        if (p == null) {
+            return null;
+        }
+        String enabled = p.getProperty(MagicNames.SCRIPT_CACHE);
+        if (enabled != null && !Project.toBoolean(enabled)) {
+            return null;
+        }
+        synchronized (ScriptEngineCache.class) {
+            ScriptEngineCache cache = p.getReference(MagicNames.REFID_SCRIPT_CACHE);
+            if (cache == null) {
+                cache = new ScriptEngineCache();
+                p.addReference(MagicNames.REFID_SCRIPT_CACHE, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Evaluates a script.
+     *
+     * @param loader the classloader to look up the engine with
+     * @param language the name of the engine
+     * @param script the script text
+     * @param beans the objects to expose to the script
+     * @return the result of the evaluation
+     * @throws ScriptException if the script fails
+     * @throws BuildException if there is no engine for the language
+     */
+    Object evaluate(ClassLoader loader, String language, String script,
+                    Map<String, Object> beans) throws ScriptException {
+        return getEntry(loader, language).evaluate(script, beans);
+    }
+
+    private synchronized Entry getEntry(ClassLoader loader, String language) {
+        List<Object> key = Arrays.<Object>asList(loader, language);
+        Entry e = entries.get(key);
+        if (e == null) {
+            ScriptEngine engine =
+                new ScriptEngineManager(loader).getEngineByName(language);
+            if (engine == null) {
+                throw new BuildException(
+                    "Unable to create javax script engine for " + language);
+            }
+            e = new Entry(engine, "FX".equalsIgnoreCase(language));
+            entries.put(key, e);
+        }
+        return e;
+    }
+
+    private static final class Entry {
+        private final ScriptEngine engine;
+        private final boolean fx;
+        private final boolean threadSafe;
+        private final Map<String, CompiledScript> compiled =
+            new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> e) {
+                    return size() > MAX_SCRIPTS;
+                }
+            };
+
+        private Entry(ScriptEngine engine, boolean fx) {
+            this.engine = engine;
+            this.fx = fx;
+            threadSafe = engine.getFactory().getParameter("THREADING") != null;
+        }
+
+        private Object evaluate(String script, Map<String, Object> beans)
+            throws ScriptException {
+            if (threadSafe) {
+                return doEvaluate(script, beans);
+            }
+            synchronized (this) {
+                return doEvaluate(script, beans);
+            }
+        }
+
+        private Object doEvaluate(String script, Map<String, Object> beans)
+            throws ScriptException {
+            Bindings bindings = engine.createBindings();
+            for (Map.Entry<String, Object> bean : beans.entrySet()) {
+                Object value = bean.getValue();
+                bindings.put(fx ? bean.getKey() + ":" + value.getClass().getName()
+                             : bean.getKey(), value);
+            }
+            CompiledScript cs = getCompiled(script);
+            return cs != null ? cs.eval(bindings) : engine.eval(script, bindings);
+        }
+
+        private CompiledScript getCompiled(String script) throws ScriptException {
+            if (!(engine instanceof Compilable)) {
+                return null;
+            }
+            synchronized (compiled) {
+                CompiledScript cs = compiled.get(script);
+                if (cs == null) {
+                    cs = ((Compilable) engine).compile(script);
+                    compiled.put(script, cs);
+                }
+                return cs;
+            }
+        }
+    }
+}
@@ -18,7 +18,9 @@
 
 package org.apache.tools.ant.util.regexp;
 
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -29,11 +31,28 @@ import org.apache.tools.ant.BuildException;
  * Implementation of RegexpMatcher for the built-in regexp matcher of
  * JDK 1.4. UNIX_LINES option is enabled as a default.
  *
+ * <p>Compiled patterns are shared between all instances - and thus
+ * between all mappers, selectors, filters and tasks using this
+ * implementation.</p>
+ *
  */
 public class Jdk14RegexpMatcher implements RegexpMatcher {
 
+    /**
+     * maximum number of compiled patterns shared by all instances,
+     * the cache is cleared once it is exceeded
+     */
+    private static final int MAX_CACHED_PATTERNS = 500;
+
+    /** compiled patterns keyed by compiler options and pattern */
+    private static final Map<String, Pattern> COMPILED_PATTERNS =
+        new ConcurrentHashMap<String, Pattern>();
+
     private String pattern;
 
+    /** the most recently used compiled form of pattern */
+    private volatile CompiledPattern lastCompiled;
+
     /** Constructor for JakartaOroRegexp */
     public Jdk14RegexpMatcher() {
     }
@@ -44,6 +63,7 @@ public class Jdk14RegexpMatcher implements RegexpMatcher {
      */
     public void setPattern(String pattern) {
         this.pattern = pattern;
+        lastCompiled = null;
     }
 
     /**
@@ -64,12 +84,26 @@ public class Jdk14RegexpMatcher implements RegexpMatcher {
     protected Pattern getCompiledPattern(int options)
         throws BuildException {
         int cOptions = getCompilerOptions(options);
-        try {
-            Pattern p = Pattern.compile(this.pattern, cOptions);
-            return p;
-        } catch (PatternSyntaxException e) {
-            throw new BuildException(e);
+        CompiledPattern last = lastCompiled;
+        if (last != null && last.options == cOptions
+            && last.pattern.pattern().equals(pattern)) {
+            return last.pattern;
         }
+        String key = cOptions + ":" + pattern;
+        Pattern p = COMPILED_PATTERNS.get(key);
+        if (p == null) {
+            try {
+                p = Pattern.compile(this.pattern, cOptions);
+            } catch (PatternSyntaxException e) {
+                throw new BuildException(e);
+            }
+            if (COMPILED_PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+                COMPILED_PATTERNS.clear();
+            }
+            COMPILED_PATTERNS.put(key, p);
+        }
+        lastCompiled = new CompiledPattern(cOptions, p);
+        return p;
     }
 
     /**
@@ -167,4 +201,14 @@ public class Jdk14RegexpMatcher implements RegexpMatcher {
         return cOptions;
     }
 
+    private static final class CompiledPattern {
+        private final int options;
+        private final Pattern pattern;
+
+        private CompiledPattern(int options, Pattern pattern) {
+            this.options = options;
+            this.pattern = pattern;
+        }
+    }
+
 }
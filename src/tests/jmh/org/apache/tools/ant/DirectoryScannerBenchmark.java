@@ -0,0 +1,105 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.taskdefs.Delete;
+import org.apache.tools.ant.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Scans a synthetic tree of directories with a few files each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryScannerBenchmark {
+
+    /** Number of subdirectories per directory. */
+    @Param({"4"})
+    public int width;
+
+    /** Number of directory levels below the base directory. */
+    @Param({"3", "5"})
+    public int depth;
+
+    /** Number of files per directory. */
+    @Param({"10"})
+    public int files;
+
+    private File baseDir;
+
+    @Setup
+    public void createTree() throws IOException {
+        baseDir = FileUtils.getFileUtils().createTempFile("scan", "", null, false, false);
+        createLevel(baseDir, depth);
+    }
+
+    @TearDown
+    public void deleteTree() {
+        Delete delete = new Delete();
+        delete.setProject(new Project());
+        delete.setDir(baseDir);
+        delete.execute();
+    }
+
+    @Benchmark
+    public int scanAll() {
+        DirectoryScanner ds = newScanner();
+        ds.scan();
+        return ds.getIncludedFilesCount();
+    }
+
+    @Benchmark
+    public int scanWithPatterns() {
+        DirectoryScanner ds = newScanner();
+        ds.setIncludes(new String[] {"**/*.java", "d0/**/*.txt"});
+        ds.setExcludes(new String[] {"**/d1/**", "**/f1.*"});
+        ds.scan();
+        return ds.getIncludedFilesCount();
+    }
+
+    private DirectoryScanner newScanner() {
+        DirectoryScanner ds = new DirectoryScanner();
+        ds.setBasedir(baseDir);
+        return ds;
+    }
+
+    private void createLevel(File dir, int levels) throws IOException {
+        dir.mkdirs();
+        for (int i = 0; i < files; i++) {
+            new File(dir, "f" + i + (i % 2 == 0 ? ".java" : ".txt")).createNewFile();
+        }
+        if (levels > 0) {
+            for (int i = 0; i < width; i++) {
+                createLevel(new File(dir, "d" + i), levels - 1);
+            }
+        }
+    }
+}
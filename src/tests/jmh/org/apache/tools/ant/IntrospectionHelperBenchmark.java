@@ -0,0 +1,80 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.taskdefs.Copy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sets attributes of a task the way the project helper does when
+ * configuring it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IntrospectionHelperBenchmark {
+
+    private Project project;
+    private Copy task;
+    private IntrospectionHelper helper;
+
+    @Setup
+    public void createTask() {
+        project = new Project();
+        task = new Copy();
+        task.setProject(project);
+        helper = IntrospectionHelper.getHelper(project, Copy.class);
+    }
+
+    @Benchmark
+    public Object lookupHelper() {
+        return IntrospectionHelper.getHelper(project, Copy.class);
+    }
+
+    @Benchmark
+    public Object setStringAttribute() {
+        helper.setAttribute(project, task, "encoding", "UTF-8");
+        return task;
+    }
+
+    @Benchmark
+    public Object setBooleanAttribute() {
+        helper.setAttribute(project, task, "overwrite", "true");
+        return task;
+    }
+
+    @Benchmark
+    public Object setFileAttribute() {
+        helper.setAttribute(project, task, "todir", "build/classes");
+        return task;
+    }
+
+    @Benchmark
+    public Object setLongAttribute() {
+        helper.setAttribute(project, task, "granularity", "2000");
+        return task;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Expands property references in strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyHelperBenchmark {
+
+    private PropertyHelper helper;
+
+    @Setup
+    public void createProject() {
+        Project project = new Project();
+        project.init();
+        for (int i = 0; i < 100; i++) {
+            project.setProperty("prop" + i, "value" + i);
+        }
+        helper = PropertyHelper.getPropertyHelper(project);
+    }
+
+    @Benchmark
+    public String noProperties() {
+        return helper.replaceProperties("a plain string without any references");
+    }
+
+    @Benchmark
+    public String singleProperty() {
+        return helper.replaceProperties("${prop42}");
+    }
+
+    @Benchmark
+    public String mixedText() {
+        return helper.replaceProperties("${prop1}/src/${prop2}/${prop3}.java $${escaped} ${undefined}");
+    }
+
+    @Benchmark
+    public String manyProperties() {
+        return helper.replaceProperties("${prop0}${prop10}${prop20}${prop30}${prop40}"
+                                        + "${prop50}${prop60}${prop70}${prop80}${prop90}");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.filters.PrefixLines;
+import org.apache.tools.ant.filters.ReplaceTokens;
+import org.apache.tools.ant.types.FilterChain;
+import org.apache.tools.ant.types.FilterSet;
+import org.apache.tools.ant.types.FilterSetCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Copies a text file with and without filtering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileUtilsBenchmark {
+
+    private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
+
+    @Param({"10000"})
+    public int lines;
+
+    private Project project;
+    private File source;
+    private File dest;
+    private FilterSetCollection filters;
+    private Vector<FilterChain> filterChains;
+
+    @Setup
+    public void createFile() throws IOException {
+        project = new Project();
+        source = FILE_UTILS.createTempFile("copy", ".txt", null, true, false);
+        dest = FILE_UTILS.createTempFile("copy", ".txt", null, true, false);
+        Writer w = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+        try {
+            for (int i = 0; i < lines; i++) {
+                w.write("line " + i + " of @project@ version @version@ with some more text\n");
+            }
+        } finally {
+            w.close();
+        }
+
+        FilterSet filterSet = new FilterSet();
+        filterSet.setProject(project);
+        filterSet.addFilter("project", "Apache Ant");
+        filterSet.addFilter("version", "1.10.0");
+        filters = new FilterSetCollection(filterSet);
+
+        FilterChain chain = new FilterChain();
+        chain.setProject(project);
+        ReplaceTokens replaceTokens = new ReplaceTokens();
+        replaceTokens.setProject(project);
+        replaceTokens.addConfiguredToken(token("project", "Apache Ant"));
+        replaceTokens.addConfiguredToken(token("version", "1.10.0"));
+        chain.addReplaceTokens(replaceTokens);
+        PrefixLines prefixLines = new PrefixLines();
+        prefixLines.setPrefix("> ");
+        chain.addPrefixLines(prefixLines);
+        filterChains = new Vector<FilterChain>();
+        filterChains.add(chain);
+    }
+
+    @TearDown
+    public void deleteFiles() {
+        FileUtils.delete(source);
+        FileUtils.delete(dest);
+    }
+
+    @Benchmark
+    public long copyUnfiltered() throws IOException {
+        FILE_UTILS.copyFile(source, dest, null, null, true, false, "UTF-8", project);
+        return dest.length();
+    }
+
+    @Benchmark
+    public long copyWithFilterSet() throws IOException {
+        FILE_UTILS.copyFile(source, dest, filters, null, true, false, "UTF-8", project);
+        return dest.length();
+    }
+
+    @Benchmark
+    public long copyWithFilterChain() throws IOException {
+        FILE_UTILS.copyFile(source, dest, null, filterChains, true, false, "UTF-8", project);
+        return dest.length();
+    }
+
+    private static ReplaceTokens.Token token(String key, String value) {
+        ReplaceTokens.Token token = new ReplaceTokens.Token();
+        token.setKey(key);
+        token.setValue(value);
+        return token;
+    }
+}
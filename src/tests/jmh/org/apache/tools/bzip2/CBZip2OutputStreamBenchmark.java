@@ -0,0 +1,73 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.bzip2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compresses a block of text in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CBZip2OutputStreamBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    @Param({"1", "9"})
+    public int blockSize;
+
+    private byte[] content;
+
+    @Setup
+    public void createContent() {
+        content = text(size);
+    }
+
+    @Benchmark
+    public int compress() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size / 2);
+        CBZip2OutputStream out = new CBZip2OutputStream(bytes, blockSize);
+        out.write(content);
+        out.close();
+        return bytes.size();
+    }
+
+    /** Compressible but not trivially repetitive content. */
+    private static byte[] text(int size) {
+        Random random = new Random(42);
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(16));
+        }
+        return b;
+    }
+}
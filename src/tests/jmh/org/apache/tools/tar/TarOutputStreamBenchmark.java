@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.tar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Writes a tar archive in memory, including entries with names that
+ * need the GNU long name extension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TarOutputStreamBenchmark {
+
+    @Param({"100"})
+    public int entries;
+
+    @Param({"16384"})
+    public int entrySize;
+
+    private byte[] content;
+
+    @Setup
+    public void createContent() {
+        content = text(entrySize);
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries * (entrySize + 1024));
+        TarOutputStream out = new TarOutputStream(bytes);
+        out.setLongFileMode(TarOutputStream.LONGFILE_GNU);
+        for (int i = 0; i < entries; i++) {
+            String name = i % 10 == 0
+                ? "a/rather/deeply/nested/directory/structure/that/exceeds/the/"
+                  + "hundred/characters/of/the/ustar/name/field/entry" + i + ".txt"
+                : "dir/entry" + i + ".txt";
+            TarEntry entry = new TarEntry(name);
+            entry.setSize(content.length);
+            out.putNextEntry(entry);
+            out.write(content);
+            out.closeEntry();
+        }
+        out.close();
+        return bytes.size();
+    }
+
+    /** Compressible but not trivially repetitive content. */
+    private static byte[] text(int size) {
+        Random random = new Random(42);
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(16));
+        }
+        return b;
+    }
+}
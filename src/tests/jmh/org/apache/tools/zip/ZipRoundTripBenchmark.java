@@ -0,0 +1,116 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.zip;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writes an archive with ZipOutputStream and reads it back with
+ * ZipFile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipRoundTripBenchmark {
+
+    @Param({"100"})
+    public int entries;
+
+    @Param({"16384"})
+    public int entrySize;
+
+    private byte[] content;
+    private File archive;
+
+    @Setup
+    public void createContent() throws IOException {
+        content = text(entrySize);
+        archive = FileUtils.getFileUtils().createTempFile("bench", ".zip", null, true, false);
+        write();
+    }
+
+    @TearDown
+    public void deleteArchive() {
+        FileUtils.delete(archive);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (int i = 0; i < entries; i++) {
+                out.putNextEntry(new ZipEntry("dir" + (i % 10) + "/entry" + i + ".txt"));
+                out.write(content);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return archive.length();
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[8192];
+        ZipFile zf = new ZipFile(archive);
+        try {
+            for (Enumeration<ZipEntry> e = zf.getEntries(); e.hasMoreElements();) {
+                InputStream in = zf.getInputStream(e.nextElement());
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) >= 0) {
+                        total += n;
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            ZipFile.closeQuietly(zf);
+        }
+        return total;
+    }
+
+    /** Compressible but not trivially repetitive content. */
+    private static byte[] text(int size) {
+        Random random = new Random(42);
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(16));
+        }
+        return b;
+    }
+}
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URL;
 import java.util.Enumeration;
+import java.util.jar.JarFile;
 
 import org.apache.tools.ant.types.Path;
 import org.apache.tools.ant.util.FileUtils;
@@ -88,6 +89,73 @@ public class AntClassLoaderTest {
         assertEquals(mainjarstring + File.pathSeparator + extjarstring, path);
     }
     
+    @Test
+    public void testJarFilesAreShared() throws IOException {
+        File mainjar = new File(buildRule.getProject().getProperty("main.jar"));
+        Path myPath = new Path(buildRule.getProject());
+        myPath.setLocation(mainjar);
+        buildRule.getProject().setUserProperty("build.sysclasspath","ignore");
+        loader = buildRule.getProject().createClassLoader(myPath);
+        AntClassLoader other = buildRule.getProject().createClassLoader(myPath);
+        try {
+            assertTrue(loader.getNamedResources("META-INF/MANIFEST.MF").hasMoreElements());
+            assertTrue(other.getNamedResources("META-INF/MANIFEST.MF").hasMoreElements());
+            JarFile jar = JarFilePool.acquire(mainjar, this);
+            try {
+                assertEquals(3, JarFilePool.getReferenceCount(jar));
+                other.cleanup();
+                assertEquals(2, JarFilePool.getReferenceCount(jar));
+                loader.cleanup();
+                assertEquals(1, JarFilePool.getReferenceCount(jar));
+            } finally {
+                JarFilePool.release(jar, this);
+            }
+            assertEquals(0, JarFilePool.getReferenceCount(jar));
+        } finally {
+            other.cleanup();
+        }
+    }
+
+    @Test
+    public void testJarFilesOfCollectedOwnersAreReleased() throws Exception {
+        File mainjar = new File(buildRule.getProject().getProperty("main.jar"));
+        JarFile jar = JarFilePool.acquire(mainjar, this);
+        try {
+            JarFilePool.acquire(mainjar, new Object());
+            assertEquals(2, JarFilePool.getReferenceCount(jar));
+            for (int i = 0; i < 50 && JarFilePool.getReferenceCount(jar) > 1; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertEquals(1, JarFilePool.getReferenceCount(jar));
+        } finally {
+            JarFilePool.release(jar, this);
+        }
+        assertEquals(0, JarFilePool.getReferenceCount(jar));
+    }
+
+    @Test
+    public void testPathComponentsAddedAfterLookup() throws IOException {
+        File mainjar = new File(buildRule.getProject().getProperty("main.jar"));
+        File dir = new File(buildRule.getProject().getProperty("tmp.dir"), "resources");
+        File resource = new File(dir, "org/example/resource.txt");
+        resource.getParentFile().mkdirs();
+        resource.createNewFile();
+        Path myPath = new Path(null);
+        myPath.setLocation(mainjar);
+        loader = new AntClassLoader(new EmptyLoader(), null, myPath, true);
+
+        assertNotNull(loader.getResource("META-INF/MANIFEST.MF"));
+        assertNull(loader.getResource("org/example/resource.txt"));
+        loader.addPathComponent(dir);
+        assertNotNull(loader.getResource("org/example/resource.txt"));
+        assertNotNull(loader.getResourceAsStream("org/example/resource.txt"));
+        Enumeration<URL> manifests = loader.getResources("META-INF/MANIFEST.MF");
+        assertTrue(manifests.hasMoreElements());
+        assertTrue(manifests.nextElement().toString().endsWith("main.jar!/META-INF/MANIFEST.MF"));
+        assertNull(loader.getResource("META-INF/resource.txt"));
+    }
+
     @Test
     public void testCleanup() throws BuildException {
         Path path = new Path(buildRule.getProject(), ".");
@@ -24,6 +24,8 @@ import org.junit.Test;
 import java.io.PrintWriter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class DefaultLoggerTest {
 
@@ -74,4 +76,45 @@ public class DefaultLoggerTest {
                 msg(be, false));
     }
 
+    @Test
+    public void testOverriddenMessageLoggedReceivesAllMessages() {
+        Project p = new Project();
+        final StringBuilder debug = new StringBuilder();
+        DefaultLogger l = new DefaultLogger() {
+                public void messageLogged(BuildEvent event) {
+                    if (event.getPriority() == Project.MSG_DEBUG) {
+                        debug.append(event.getMessage());
+                    }
+                }
+            };
+        l.setMessageOutputLevel(Project.MSG_INFO);
+        p.addBuildListener(l);
+        assertTrue(p.isLoggable(Project.MSG_DEBUG));
+        p.log("captured", Project.MSG_DEBUG);
+        assertEquals("captured", debug.toString());
+    }
+
+    @Test
+    public void testLevelIsUsedIfSubclassOptsIn() {
+        Project p = new Project();
+        DefaultLogger l = new NoBannerLogger() { };
+        l.setMessageOutputLevel(Project.MSG_INFO);
+        p.addBuildListener(l);
+        assertTrue(p.isLoggable(Project.MSG_INFO));
+        assertFalse(p.isLoggable(Project.MSG_VERBOSE));
+    }
+
+    @Test
+    public void testLevelChangesAfterRegistrationAreSeen() {
+        Project p = new Project();
+        DefaultLogger l = new DefaultLogger();
+        l.setMessageOutputLevel(Project.MSG_INFO);
+        p.addBuildListener(l);
+        assertFalse(p.isLoggable(Project.MSG_VERBOSE));
+        l.setMessageOutputLevel(Project.MSG_VERBOSE);
+        assertTrue(p.isLoggable(Project.MSG_VERBOSE));
+        l.setMessageOutputLevel(Project.MSG_WARN);
+        assertFalse(p.isLoggable(Project.MSG_INFO));
+    }
+
 }
@@ -479,6 +479,46 @@ public class IntrospectionHelperTest {
         return attrMap;
     }
 
+    @Test
+    public void testAttributeSettersWithObjects() {
+        ih.setAttribute(p, this, "eight", Integer.valueOf(2));
+        ih.setAttribute(p, this, "twelve", Boolean.FALSE);
+        // needs a conversion
+        ih.setAttribute(p, this, "nineteen", Integer.valueOf(19));
+        try {
+            ih.setAttribute(p, this, "eight", (Object) null);
+            fail("null is not a legal int");
+        } catch (BuildException be) {
+            assertTrue(be.getMessage(), be.getMessage().contains("primitive eight to null"));
+        }
+    }
+
+    @Test
+    public void testExceptionsOfSettersAreWrapped() {
+        try {
+            ih.setAttribute(p, this, "seven", "3");
+            fail("setSeven only accepts 2");
+        } catch (BuildException be) {
+            assertTrue(String.valueOf(be.getCause()), be.getCause() instanceof AssertionError);
+        }
+    }
+
+    @Test
+    public void testStaticSetter() {
+        IntrospectionHelper helper =
+            IntrospectionHelper.getHelper(StaticSetter.class);
+        helper.setAttribute(p, new StaticSetter(), "global", "value");
+        assertEquals("value", StaticSetter.global);
+    }
+
+    public static class StaticSetter {
+        private static String global;
+
+        public static void setGlobal(String s) {
+            global = s;
+        }
+    }
+
     @Test
     public void testGetAttributes() {
         Map attrMap = getExpectedAttributes();
@@ -298,6 +298,129 @@ public class ProjectTest {
         assertTrue("Expected logging thread to finish successfully", done[0]);
     }
 
+    @Test
+    public void testAsyncLoggingKeepsEventOrder() {
+        final StringBuffer events = new StringBuffer();
+        final Thread[] loggingThread = new Thread[1];
+        p.addBuildListener(new BuildListener() {
+                public void buildStarted(BuildEvent event) {}
+                public void buildFinished(BuildEvent event) {
+                    events.append("finished;");
+                }
+                public void targetStarted(BuildEvent event) {
+                    events.append("target;");
+                }
+                public void targetFinished(BuildEvent event) {}
+                public void taskStarted(BuildEvent event) {}
+                public void taskFinished(BuildEvent event) {}
+                public void messageLogged(final BuildEvent event) {
+                    loggingThread[0] = Thread.currentThread();
+                    events.append(event.getMessage()).append(';');
+                }
+            });
+        p.setAsyncLogging(true);
+        assertTrue(p.isAsyncLogging());
+        p.log("a");
+        p.log("b");
+        p.fireTargetStarted(new Target());
+        assertEquals("a;b;target;", events.toString());
+        assertTrue(loggingThread[0] != Thread.currentThread());
+        p.log("c");
+        p.fireBuildFinished(null);
+        assertEquals("a;b;target;c;finished;", events.toString());
+        assertTrue(!p.isAsyncLogging());
+        // logging after the end of the build is synchronous again
+        p.log("d");
+        assertEquals("a;b;target;c;finished;d;", events.toString());
+        assertSame(Thread.currentThread(), loggingThread[0]);
+    }
+
+    @Test
+    public void testAsyncLoggingRemovesFailingListener() {
+        final BuildListener failing = new BuildListener() {
+                public void buildStarted(BuildEvent event) {}
+                public void buildFinished(BuildEvent event) {}
+                public void targetStarted(BuildEvent event) {}
+                public void targetFinished(BuildEvent event) {}
+                public void taskStarted(BuildEvent event) {}
+                public void taskFinished(BuildEvent event) {}
+                public void messageLogged(final BuildEvent event) {
+                    throw new IllegalStateException("broken");
+                }
+            };
+        final StringBuffer messages = new StringBuffer();
+        final Exception[] exception = new Exception[1];
+        p.addBuildListener(failing);
+        p.addBuildListener(new BuildListener() {
+                public void buildStarted(BuildEvent event) {}
+                public void buildFinished(BuildEvent event) {}
+                public void targetStarted(BuildEvent event) {}
+                public void targetFinished(BuildEvent event) {}
+                public void taskStarted(BuildEvent event) {}
+                public void taskFinished(BuildEvent event) {}
+                public void messageLogged(final BuildEvent event) {
+                    if (event.getPriority() == Project.MSG_ERR) {
+                        exception[0] = (Exception) event.getException();
+                    } else {
+                        messages.append(event.getMessage()).append(';');
+                    }
+                }
+            });
+        p.setAsyncLogging(true);
+        p.log("a");
+        p.log("b");
+        // neither the thread logging nor the one waiting sees the failure
+        p.fireTargetStarted(new Target());
+        assertEquals("a;b;", messages.toString());
+        assertTrue(exception[0] instanceof IllegalStateException);
+        assertTrue(!p.getBuildListeners().contains(failing));
+        p.fireBuildFinished(null);
+    }
+
+    @Test
+    public void testMessagesNobodyListensToAreDropped() {
+        final StringBuffer messages = new StringBuffer();
+        final DefaultLogger logger = new DefaultLogger() {
+                protected boolean isLevelFilteringEnabled() {
+                    return true;
+                }
+                public void messageLogged(BuildEvent event) {
+                    messages.append(event.getMessage()).append(';');
+                }
+            };
+        logger.setMessageOutputLevel(Project.MSG_INFO);
+        assertTrue(!p.isLoggable(Project.MSG_ERR));
+        p.addBuildListener(logger);
+        assertTrue(p.isLoggable(Project.MSG_INFO));
+        assertTrue(!p.isLoggable(Project.MSG_VERBOSE));
+        p.log("info", Project.MSG_INFO);
+        p.log("debug", Project.MSG_DEBUG);
+        assertEquals("info;", messages.toString());
+
+        // the level of a registered logger may change
+        logger.setMessageOutputLevel(Project.MSG_VERBOSE);
+        p.log("verbose", Project.MSG_VERBOSE);
+        assertEquals("info;verbose;", messages.toString());
+        logger.setMessageOutputLevel(Project.MSG_INFO);
+
+        // listeners without a level receive everything
+        final BuildListener plain = new BuildListener() {
+                public void buildStarted(BuildEvent event) {}
+                public void buildFinished(BuildEvent event) {}
+                public void targetStarted(BuildEvent event) {}
+                public void targetFinished(BuildEvent event) {}
+                public void taskStarted(BuildEvent event) {}
+                public void taskFinished(BuildEvent event) {}
+                public void messageLogged(BuildEvent event) {}
+            };
+        p.addBuildListener(plain);
+        assertTrue(p.isLoggable(Project.MSG_DEBUG));
+        p.log("debug", Project.MSG_DEBUG);
+        assertEquals("info;verbose;debug;", messages.toString());
+        p.removeBuildListener(plain);
+        assertTrue(!p.isLoggable(Project.MSG_DEBUG));
+    }
+
     /**
      * @see <a href="https://issues.apache.org/bugzilla/show_bug.cgi?id=47623">
      *     https://issues.apache.org/bugzilla/show_bug.cgi?id=47623</a>
@@ -0,0 +1,100 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.Metrics;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsListenerTest {
+
+    private Project project;
+    private File metricsFile;
+
+    @Before
+    public void setUp() {
+        project = new Project();
+        project.setName("demo");
+        metricsFile = FileUtils.getFileUtils().createTempFile("metrics", ".json", null,
+                                                              true, false);
+        project.setProperty(MetricsListener.METRICS_FILE_PROPERTY,
+                            metricsFile.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.delete(metricsFile);
+    }
+
+    @Test
+    public void testRegisterReturnsExistingCounter() {
+        assertSame(Metrics.FILES_SCANNED, Metrics.register(Metrics.FILES_SCANNED.getName()));
+    }
+
+    @Test
+    public void testCountersArePublishedViaJmxAndFile() throws Exception {
+        Metrics.Counter counter = Metrics.register("test.counter");
+        counter.add(5);
+        MetricsListener listener = new MetricsListener();
+        listener.buildStarted(new BuildEvent(project));
+        counter.add(3);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names =
+            server.queryNames(new ObjectName(MetricsListener.OBJECT_NAME_PREFIX + ",*"), null);
+        assertEquals(1, names.size());
+        ObjectName name = names.iterator().next();
+        assertEquals("demo", server.getAttribute(name, "ProjectName"));
+        TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+        CompositeData row = counters.get(new Object[] {"test.counter"});
+        assertEquals(Long.valueOf(3), row.get("value"));
+
+        listener.buildFinished(new BuildEvent(project));
+        assertTrue(server.queryNames(name, null).isEmpty());
+
+        Reader r = new FileReader(metricsFile);
+        String json;
+        try {
+            json = FileUtils.readFully(r);
+        } finally {
+            FileUtils.close(r);
+        }
+        assertTrue(json, json.contains("\"project\": \"demo\","));
+        assertTrue(json, json.contains("\"success\": true,"));
+        assertTrue(json, json.contains("\"test.counter\": 3"));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.taskdefs.Echo;
+import org.apache.tools.ant.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProfilingListenerTest {
+
+    private Project project;
+    private ProfilingListener listener;
+    private File trace;
+    private File summary;
+
+    @Before
+    public void setUp() throws IOException {
+        project = new Project();
+        project.setName("demo");
+        trace = File.createTempFile("profile", ".json");
+        summary = File.createTempFile("profile", ".txt");
+        project.setProperty(ProfilingListener.TRACE_FILE_PROPERTY, trace.getAbsolutePath());
+        project.setProperty(ProfilingListener.SUMMARY_FILE_PROPERTY,
+                            summary.getAbsolutePath());
+        listener = new ProfilingListener();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.delete(trace);
+        FileUtils.delete(summary);
+    }
+
+    @Test
+    public void testCriticalPathFollowsSlowestDependency() throws Exception {
+        Target a = createTarget("a", null);
+        Target b = createTarget("b", null);
+        Target c = createTarget("c", "a,b");
+
+        listener.buildStarted(new BuildEvent(project));
+        runTarget(a, 50);
+        runTarget(b, 0);
+        runTarget(c, 10);
+        listener.buildFinished(new BuildEvent(project));
+
+        String text = read(summary);
+        int path = text.indexOf("Critical path of project demo");
+        assertTrue(text, path >= 0);
+        String criticalPath = text.substring(path, text.indexOf("Targets:"));
+        assertTrue(criticalPath, criticalPath.matches("(?s).*  a\\s.*  c\\s.*"));
+        assertFalse(criticalPath, criticalPath.contains("  b"));
+        assertTrue(text, text.contains("Tasks:"));
+        assertTrue(text, text.matches("(?s).*Tasks:.*\\s3  echo.*"));
+    }
+
+    @Test
+    public void testTasksOfChildThreadsAreAttributedToParent() throws Exception {
+        final Target main = createTarget("main", null);
+        listener.buildStarted(new BuildEvent(project));
+        listener.targetStarted(new BuildEvent(main));
+        Task parallel = createTask("parallel", main);
+        listener.taskStarted(new BuildEvent(parallel));
+        ThreadGroup group = new ThreadGroup("parallel");
+        Thread t = new Thread(group, new Runnable() {
+                public void run() {
+                    Task child = createTask("child", main);
+                    listener.taskStarted(new BuildEvent(child));
+                    listener.taskFinished(new BuildEvent(child));
+                }
+            }, "branch");
+        t.start();
+        t.join();
+        listener.taskFinished(new BuildEvent(parallel));
+        listener.targetFinished(new BuildEvent(main));
+        listener.buildFinished(new BuildEvent(project));
+
+        String json = read(trace);
+        assertTrue(json, json.startsWith("{"));
+        assertTrue(json, json.contains("\"name\":\"thread_name\",\"pid\":1,\"tid\":2,"
+                                       + "\"args\":{\"name\":\"branch\"}"));
+        assertTrue(json, json.contains("\"name\":\"child\",\"pid\":1,\"tid\":2,"));
+        assertTrue(json, json.matches("(?s).*\"name\":\"child\"[^\n]*"
+                                      + "\"parent\":\"parallel\".*"));
+    }
+
+    private Target createTarget(String name, String depends) {
+        Target target = new Target();
+        target.setName(name);
+        target.setProject(project);
+        if (depends != null) {
+            target.setDepends(depends);
+        }
+        project.addTarget(target);
+        return target;
+    }
+
+    private void runTarget(Target target, long sleep) throws InterruptedException {
+        listener.targetStarted(new BuildEvent(target));
+        Task task = createTask("echo", target);
+        listener.taskStarted(new BuildEvent(task));
+        Thread.sleep(sleep);
+        listener.taskFinished(new BuildEvent(task));
+        listener.targetFinished(new BuildEvent(target));
+    }
+
+    private Task createTask(String name, Target target) {
+        Task task = new Echo();
+        task.setProject(project);
+        task.setTaskName(name);
+        task.setOwningTarget(target);
+        return task;
+    }
+
+    private static String read(File f) throws IOException {
+        Reader r = new FileReader(f);
+        try {
+            return FileUtils.readFully(r);
+        } finally {
+            FileUtils.close(r);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.listener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.taskdefs.Echo;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingXmlLoggerTest {
+
+    private Project project;
+    private StreamingXmlLogger logger;
+    private ByteArrayOutputStream out;
+
+    @Before
+    public void setUp() {
+        project = new Project();
+        logger = new StreamingXmlLogger();
+        out = new ByteArrayOutputStream();
+        logger.setOutputPrintStream(new PrintStream(out));
+    }
+
+    @Test
+    public void testFinishedTasksAreWrittenImmediately() throws Exception {
+        logger.buildStarted(new BuildEvent(project));
+        Target target = new Target();
+        target.setName("main");
+        logger.targetStarted(new BuildEvent(target));
+        Task task = createTask("echo", target);
+        logger.taskStarted(new BuildEvent(task));
+        logger.messageLogged(message(task, "hello ]]> world", Project.MSG_INFO));
+        logger.taskFinished(new BuildEvent(task));
+
+        String partial = out.toString("UTF-8");
+        assertTrue(partial, partial.contains("<task name=\"echo\""));
+        assertTrue(partial, partial.contains("</task>"));
+        assertTrue(partial, !partial.contains("</build>"));
+
+        logger.targetFinished(new BuildEvent(target));
+        BuildEvent finished = new BuildEvent(project);
+        finished.setException(new BuildException("boom"));
+        logger.buildFinished(finished);
+
+        Element build = parse().getDocumentElement();
+        assertEquals("build", build.getTagName());
+        Element buildFinished = lastChild(build, "finished");
+        assertEquals("boom", buildFinished.getAttribute("error"));
+        assertEquals(1, build.getElementsByTagName("stacktrace").getLength());
+        Element message = (Element) build.getElementsByTagName("message").item(0);
+        assertEquals("info", message.getAttribute("priority"));
+        assertEquals("hello ]]> world", message.getTextContent());
+        assertEquals("task", message.getParentNode().getNodeName());
+    }
+
+    @Test
+    public void testTasksOfOtherThreadsAreNotInterleaved() throws Exception {
+        logger.buildStarted(new BuildEvent(project));
+        final Target target = new Target();
+        target.setName("main");
+        logger.targetStarted(new BuildEvent(target));
+        final Task parallel = createTask("parallel", target);
+        logger.taskStarted(new BuildEvent(parallel));
+        final Task child = createTask("echo", target);
+        final Thread t = new Thread() {
+                public void run() {
+                    logger.taskStarted(new BuildEvent(child));
+                    logger.messageLogged(message(child, "from thread", Project.MSG_INFO));
+                    // started but not finished before the main
+                    // thread logs its message
+                    synchronized (StreamingXmlLoggerTest.this) {
+                        StreamingXmlLoggerTest.this.notifyAll();
+                        try {
+                            StreamingXmlLoggerTest.this.wait();
+                        } catch (InterruptedException e) {
+                            // ignore
+                        }
+                    }
+                    logger.taskFinished(new BuildEvent(child));
+                }
+            };
+        synchronized (this) {
+            t.start();
+            wait();
+            logger.messageLogged(message(parallel, "from main", Project.MSG_INFO));
+            notifyAll();
+        }
+        t.join();
+        logger.taskFinished(new BuildEvent(parallel));
+        logger.targetFinished(new BuildEvent(target));
+        logger.buildFinished(new BuildEvent(project));
+
+        NodeList tasks = parse().getElementsByTagName("task");
+        assertEquals(2, tasks.getLength());
+        Element inner = (Element) tasks.item(1);
+        assertEquals(tasks.item(0), inner.getParentNode());
+        assertEquals("from thread",
+                     inner.getElementsByTagName("message").item(0).getTextContent());
+        assertEquals(1, inner.getElementsByTagName("message").getLength());
+    }
+
+    private Task createTask(String name, Target target) {
+        Task task = new Echo();
+        task.setProject(project);
+        task.setTaskName(name);
+        task.setOwningTarget(target);
+        return task;
+    }
+
+    private static BuildEvent message(Task task, String message, int priority) {
+        BuildEvent event = new BuildEvent(task);
+        event.setMessage(message, priority);
+        return event;
+    }
+
+    private Document parse() throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static Element lastChild(Element parent, String tagName) {
+        NodeList children = parent.getElementsByTagName(tagName);
+        return (Element) children.item(children.getLength() - 1);
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.tools.ant.taskdefs;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.BuildFileRule;
 import org.apache.tools.ant.FileUtilities;
+import org.apache.tools.ant.util.FileNameMapper;
+import org.apache.tools.ant.util.FileUtils;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -27,6 +29,10 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -79,6 +85,30 @@ public class UnzipTest {
         assertLogoUncorrupted();
     }
 
+    @Test
+    public void testParallelExpansionUsesOverriddenExtractFile() throws IOException {
+        final List<String> extracted = new ArrayList<String>();
+        Expand e = new Expand() {
+                protected void extractFile(FileUtils fileUtils, File srcF, File dir,
+                                           InputStream compressedInputStream,
+                                           String entryName, Date entryDate,
+                                           boolean isDirectory, FileNameMapper mapper)
+                    throws IOException {
+                    extracted.add(entryName);
+                    super.extractFile(fileUtils, srcF, dir, compressedInputStream,
+                                      entryName, entryDate, isDirectory, mapper);
+                }
+            };
+        e.setProject(buildRule.getProject());
+        e.setSrc(buildRule.getProject().resolveFile("expected/asf-logo.gif.zip"));
+        e.setDest(new File(buildRule.getProject().getProperty("output")));
+        e.setThreads(2);
+        e.setIncremental(true);
+        e.execute();
+        assertEquals(1, extracted.size());
+        assertLogoUncorrupted();
+    }
+
     /**
      * test that the logo gif file has not been corrupted
      * @throws IOException
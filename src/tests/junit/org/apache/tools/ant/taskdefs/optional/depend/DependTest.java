@@ -190,6 +190,26 @@ public class DependTest {
         buildRule.executeTarget("testcache");
     }
 
+    /**
+     * Test that dependencies read from the cache lead to the same
+     * result as dependencies read from the class files
+     */
+    @Test
+    public void testClosureWithCache() {
+        buildRule.executeTarget("src1setup");
+        buildRule.executeTarget("compile");
+
+        FileUtilities.rollbackTimetamps(new File(buildRule.getProject().getProperty("tempsrc.dir")), 5);
+        FileUtilities.rollbackTimetamps(new File(buildRule.getProject().getProperty("classes.dir")), 5);
+
+        buildRule.executeTarget("testclosurecache");
+        Hashtable files = getResultFiles();
+        assertEquals("Depend did not leave correct number of files",
+            1, files.size());
+        assertTrue("Result did not contain D.class",
+            files.containsKey("D.class"));
+    }
+
     /**
      * Test the detection and warning of non public classes
      */
@@ -0,0 +1,71 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.taskdefs.optional.junit;
+
+import java.io.File;
+import java.util.Map;
+
+import org.apache.tools.ant.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DurationStoreTest {
+
+    private File file;
+
+    @Before
+    public void setUp() {
+        file = FileUtils.getFileUtils().createTempFile("durations", ".txt", null, true, false);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testMissingFileIsEmpty() throws Exception {
+        assertTrue(DurationStore.load(file).isEmpty());
+    }
+
+    @Test
+    public void testLatestDurationWins() throws Exception {
+        DurationStore.append(file, "a.Test", 10);
+        DurationStore.append(file, "b.Test", 20);
+        DurationStore.append(file, "a.Test", 30);
+        Map<String, Long> durations = DurationStore.load(file);
+        assertEquals(2, durations.size());
+        assertEquals(Long.valueOf(30), durations.get("a.Test"));
+        assertEquals(Long.valueOf(20), durations.get("b.Test"));
+    }
+
+    @Test
+    public void testFileIsCompacted() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            DurationStore.append(file, "a.Test", i);
+        }
+        long before = file.length();
+        assertEquals(Long.valueOf(9), DurationStore.load(file).get("a.Test"));
+        assertTrue(file.length() < before);
+        assertEquals(Long.valueOf(9), DurationStore.load(file).get("a.Test"));
+    }
+}
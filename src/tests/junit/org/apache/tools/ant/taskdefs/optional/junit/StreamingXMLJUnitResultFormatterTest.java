@@ -0,0 +1,77 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.taskdefs.optional.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Hashtable;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingXMLJUnitResultFormatterTest {
+
+    @Test
+    public void testOutputMatchesXMLFormatter() throws Exception {
+        // share the exceptions so the stack traces match
+        AssertionFailedError failure = new AssertionFailedError("boom");
+        Throwable error = new IllegalStateException("bang");
+        String expected = normalize(run(new XMLJUnitResultFormatter(), failure, error));
+        String actual = normalize(run(new StreamingXMLJUnitResultFormatter(), failure, error));
+        assertTrue(actual, actual.contains("name=\"test2\""));
+        assertTrue(actual, actual.contains("<failure message=\"boom\""));
+        assertTrue(actual, actual.contains("<system-out><![CDATA[some output]]></system-out>"));
+        assertEquals(expected, actual);
+    }
+
+    private static String run(JUnitResultFormatter formatter, AssertionFailedError failure,
+                              Throwable error) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.setOutput(out);
+        JUnitTest suite = new JUnitTest("my.Test");
+        Hashtable<String, String> props = new Hashtable<String, String>();
+        props.put("key", "value");
+        suite.setProperties(props);
+        formatter.startTestSuite(suite);
+        for (int i = 0; i < 50; i++) {
+            TestCase t = new TestCase("test" + i) { };
+            formatter.startTest(t);
+            if (i % 7 == 0) {
+                formatter.addFailure(t, failure);
+            } else if (i % 11 == 0) {
+                formatter.addError(t, error);
+            }
+            formatter.endTest(t);
+        }
+        formatter.setSystemOutput("some output");
+        formatter.setSystemError("");
+        suite.setCounts(50, 8, 4, 0);
+        suite.setRunTime(1234);
+        formatter.endTestSuite(suite);
+        return out.toString("UTF-8");
+    }
+
+    /** Removes everything that depends on the time of the run. */
+    private static String normalize(String s) {
+        return s.replaceAll("(timestamp|time)=\"[^\"]*\"", "$1=\"\"");
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.tools.ant.taskdefs.optional.junit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -25,12 +26,17 @@ import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.security.Permission;
 
+import javax.xml.parsers.DocumentBuilderFactory;
+
 import org.apache.tools.ant.DefaultLogger;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Delete;
 import org.apache.tools.ant.types.FileSet;
 import org.junit.Assume;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 public class XMLResultAggregatorTest {
 
@@ -90,4 +96,58 @@ public class XMLResultAggregatorTest {
         assertTrue(new File(d, "index.html").isFile());
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+        final File d = new File(System.getProperty("java.io.tmpdir"), "XMLResultAggregatorTest-streaming");
+        if (d.exists()) {
+            new Delete() {{removeDir(d);}};
+        }
+        assertTrue(d.getAbsolutePath(), d.mkdir());
+        for (int i = 0; i < 5; i++) {
+            PrintWriter pw = new PrintWriter(new FileOutputStream(new File(d, "TEST-" + i + ".xml")));
+            try {
+                pw.println("<testsuite errors='0' failures='0' name='my.Unit" + i + "Test' tests='1'>");
+                pw.println(" <testcase classname='my.Unit" + i + "Test' name='test&amp;Something'/>");
+                pw.println(" <system-out><![CDATA[a < b]]></system-out>");
+                pw.println("</testsuite>");
+            } finally {
+                pw.close();
+            }
+        }
+        new FileOutputStream(new File(d, "TEST-empty.xml")).close();
+        PrintWriter pw = new PrintWriter(new FileOutputStream(new File(d, "TEST-corrupt.xml")));
+        try {
+            pw.println("<testsuite name='Corrupt'><testcase>");
+        } finally {
+            pw.close();
+        }
+        XMLResultAggregator task = new XMLResultAggregator();
+        task.setTodir(d);
+        Project project = new Project();
+        project.init();
+        task.setProject(project);
+        task.setStreaming(true);
+        task.setThreads(3);
+        FileSet fs = new FileSet();
+        fs.setDir(d);
+        fs.setIncludes("TEST-*.xml");
+        task.addFileSet(fs);
+        task.execute();
+
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(task.getDestinationFile());
+        NodeList suites = doc.getDocumentElement().getElementsByTagName("testsuite");
+        assertEquals(5, suites.getLength());
+        for (int i = 0; i < 5; i++) {
+            Element suite = (Element) suites.item(i);
+            assertEquals("Unit" + i + "Test", suite.getAttribute("name"));
+            assertEquals("my", suite.getAttribute("package"));
+            assertEquals(String.valueOf(i), suite.getAttribute("id"));
+            Element testcase = (Element) suite.getElementsByTagName("testcase").item(0);
+            assertEquals("test&Something", testcase.getAttribute("name"));
+            assertEquals("a < b", suite.getElementsByTagName("system-out").item(0)
+                         .getTextContent());
+        }
+    }
+
 }
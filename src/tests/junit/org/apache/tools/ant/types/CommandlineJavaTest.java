@@ -19,13 +19,17 @@
 package org.apache.tools.ant.types;
 
 
+import java.io.File;
+
 import org.apache.tools.ant.MagicNames;
 import org.apache.tools.ant.Project;
+import org.apache.tools.ant.util.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertNotNull;
@@ -188,4 +192,69 @@ public class CommandlineJavaTest {
         }
     }
 
+    @Test
+    public void testSharedArchiveDir() throws Exception {
+        File dir = FileUtils.getFileUtils().createTempFile("cds", "", null, true, false);
+        try {
+            CommandlineJava c = new CommandlineJava();
+            c.setClassname("junit.textui.TestRunner");
+            c.createVmArgument().setValue("-Djava.compiler=NONE");
+            c.createClasspath(project).setLocation(project.resolveFile("build.xml"));
+            c.setSharedArchiveDir(dir);
+
+            // first VM creates the archive, repeated calls agree
+            String[] s = c.getCommandline();
+            assertEquals(6, s.length);
+            assertEquals(s.length, c.size());
+            assertEquals("-Djava.compiler=NONE", s[1]);
+            String prefix = "-XX:ArchiveClassesAtExit=";
+            assertTrue(s[2], s[2].startsWith(prefix));
+            File temp = new File(s[2].substring(prefix.length()));
+            assertEquals(dir.getAbsoluteFile(), temp.getParentFile());
+            assertTrue(temp.getName().endsWith(".jsa.tmp"));
+            assertEquals("-classpath", s[3]);
+            assertEquals(s[2], c.getCommandline()[2]);
+
+            // concurrent VMs don't use the incomplete archive
+            CommandlineJava c2 = (CommandlineJava) c.clone();
+            s = c2.getCommandline();
+            assertEquals(5, s.length);
+            assertEquals(s.length, c2.size());
+            assertEquals("-classpath", s[2]);
+
+            // a VM that didn't exit normally leaves no archive
+            assertTrue(temp.createNewFile());
+            c.completeSharedArchive(false);
+            assertEquals(0, dir.listFiles().length);
+
+            // once it has been written it is moved into place and used
+            s = c.getCommandline();
+            temp = new File(s[2].substring(prefix.length()));
+            assertTrue(temp.createNewFile());
+            c.completeSharedArchive(true);
+            File[] archives = dir.listFiles();
+            assertEquals(1, archives.length);
+            File archive = archives[0];
+            assertTrue(archive.getName(), archive.getName().endsWith(".jsa"));
+            CommandlineJava c3 = (CommandlineJava) c.clone();
+            s = c3.getCommandline();
+            assertEquals("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), s[2]);
+            assertEquals(s[2], c.getCommandline()[2]);
+
+            // a different classpath requires a different archive
+            c3.createClasspath(project).setLocation(project.resolveFile("WHATSNEW"));
+            s = c3.getCommandline();
+            assertTrue(s[2], s[2].startsWith(prefix));
+            assertFalse(archive.getAbsolutePath()
+                        .equals(s[2].substring(prefix.length())));
+        } finally {
+            if (dir.isDirectory()) {
+                for (File f : dir.listFiles()) {
+                    f.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
 }
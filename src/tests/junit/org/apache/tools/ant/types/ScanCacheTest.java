@@ -0,0 +1,145 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types;
+
+import java.io.File;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.taskdefs.Delete;
+import org.apache.tools.ant.taskdefs.Mkdir;
+import org.apache.tools.ant.types.selectors.FilenameSelector;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ScanCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Project project;
+
+    @Before
+    public void setUp() throws Exception {
+        project = new Project();
+        project.init();
+        folder.newFile("a.java");
+        folder.newFile("b.txt");
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        assertNull(ScanCache.getScanCache(project));
+        DirectoryScanner ds = fileset("**/*.java").getDirectoryScanner();
+        assertEquals(1, ds.getIncludedFilesCount());
+        folder.newFile("c.java");
+        assertEquals(2, fileset("**/*.java").getDirectoryScanner()
+                     .getIncludedFilesCount());
+    }
+
+    @Test
+    public void testIdenticalFileSetsShareScan() {
+        project.setProperty(MagicNames.SCAN_CACHE, "true");
+        DirectoryScanner ds = fileset("**/*.java").getDirectoryScanner();
+        assertSame(ds, fileset("**/*.java").getDirectoryScanner());
+        assertSame(ds, dirset("**/*.java").getDirectoryScanner());
+        assertNotSame(ds, fileset("**/*.txt").getDirectoryScanner());
+
+        FileSet caseInsensitive = fileset("**/*.java");
+        caseInsensitive.setCaseSensitive(false);
+        assertNotSame(ds, caseInsensitive.getDirectoryScanner());
+    }
+
+    @Test
+    public void testFileSetsWithSelectorsAreNotCached() {
+        project.setProperty(MagicNames.SCAN_CACHE, "true");
+        FileSet fs = fileset("**/*.java");
+        FilenameSelector s = new FilenameSelector();
+        s.setName("a.java");
+        fs.addFilename(s);
+        DirectoryScanner ds = fs.getDirectoryScanner();
+        assertNotSame(ds, fileset("**/*.java").getDirectoryScanner());
+        FileSet other = fileset("**/*.java");
+        other.addFilename(s);
+        assertNotSame(ds, other.getDirectoryScanner());
+    }
+
+    @Test
+    public void testInvalidatedByTasks() throws Exception {
+        project.setProperty(MagicNames.SCAN_CACHE, "true");
+        assertEquals(1, fileset("**/*.java").getDirectoryScanner()
+                     .getIncludedFilesCount());
+
+        // not created by an Ant task, cache doesn't know
+        File c = folder.newFile("c.java");
+        assertEquals(1, fileset("**/*.java").getDirectoryScanner()
+                     .getIncludedFilesCount());
+
+        Delete delete = new Delete();
+        delete.setProject(project);
+        delete.setFile(c);
+        delete.execute();
+        folder.newFile("d.java");
+        assertEquals(2, fileset("**/*.java").getDirectoryScanner()
+                     .getIncludedFilesCount());
+
+        Mkdir mkdir = new Mkdir();
+        mkdir.setProject(project);
+        mkdir.setDir(new File(folder.getRoot(), "sub/dir"));
+        mkdir.execute();
+        assertEquals(3, dirset("**").getDirectoryScanner()
+                     .getIncludedDirsCount());
+    }
+
+    @Test
+    public void testInvalidationOfParentOrChild() throws Exception {
+        project.setProperty(MagicNames.SCAN_CACHE, "true");
+        DirectoryScanner ds = fileset("**/*.java").getDirectoryScanner();
+        ScanCache.invalidate(new File(folder.getRoot().getParentFile(),
+                                      folder.getRoot().getName() + "x"));
+        assertSame(ds, fileset("**/*.java").getDirectoryScanner());
+        ScanCache.invalidate(folder.getRoot().getParentFile());
+        DirectoryScanner ds2 = fileset("**/*.java").getDirectoryScanner();
+        assertNotSame(ds, ds2);
+        ScanCache.invalidate(new File(folder.getRoot(), "x/y.java"));
+        assertNotSame(ds2, fileset("**/*.java").getDirectoryScanner());
+    }
+
+    private FileSet fileset(String includes) {
+        return init(new FileSet(), includes);
+    }
+
+    private DirSet dirset(String includes) {
+        return init(new DirSet(), includes);
+    }
+
+    private <T extends AbstractFileSet> T init(T fs, String includes) {
+        fs.setProject(project);
+        fs.setDir(folder.getRoot());
+        fs.setIncludes(includes);
+        return fs;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.Resource;
+import org.apache.tools.ant.types.resources.comparators.Content;
+import org.apache.tools.ant.types.resources.comparators.Date;
+import org.apache.tools.ant.types.resources.comparators.DelegatedResourceComparator;
+import org.apache.tools.ant.types.resources.comparators.Name;
+import org.apache.tools.ant.types.resources.comparators.ResourceComparator;
+import org.apache.tools.ant.types.resources.comparators.Reverse;
+import org.apache.tools.ant.types.resources.comparators.Size;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortTest {
+
+    private Project project;
+    private List<Resource> resources;
+
+    @Before
+    public void setUp() {
+        project = new Project();
+        resources = new ArrayList<Resource>();
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            prefix.append('x');
+        }
+        String[] contents = new String[] {
+            prefix + "b", prefix + "a", prefix.toString(), "b", "a", "",
+            prefix + "a", "ab"
+        };
+        for (int i = 0; i < contents.length; i++) {
+            StringResource r = new StringResource(project, contents[i]);
+            r.setLastModified(1000L * (i % 4));
+            resources.add(r);
+        }
+    }
+
+    @Test
+    public void testSortKeysSortLikeComparator() {
+        assertSortsLikeComparator(new Name());
+        assertSortsLikeComparator(new Size());
+        assertSortsLikeComparator(new Date());
+        assertSortsLikeComparator(new Content());
+        Content text = new Content();
+        text.setBinary(false);
+        assertSortsLikeComparator(text);
+        assertSortsLikeComparator(reverse(new Content()));
+        assertSortsLikeComparator(reverse(null));
+        assertSortsLikeComparator(new DelegatedResourceComparator());
+        DelegatedResourceComparator d = new DelegatedResourceComparator();
+        d.add(new Date());
+        d.add(reverse(new Name()));
+        d.add(new Content());
+        assertSortsLikeComparator(d);
+    }
+
+    @Test
+    public void testUnsupportedNestedComparatorDisablesSortKeys() {
+        ResourceComparator custom = new ResourceComparator() {
+                protected int resourceCompare(Resource foo, Resource bar) {
+                    return foo.getName().compareTo(bar.getName());
+                }
+            };
+        assertFalse(custom.isSortKeySupported());
+        DelegatedResourceComparator d = new DelegatedResourceComparator();
+        d.add(new Size());
+        assertTrue(d.isSortKeySupported());
+        d.add(reverse(custom));
+        assertFalse(d.isSortKeySupported());
+        assertSortsLikeComparator(d);
+    }
+
+    private void assertSortsLikeComparator(ResourceComparator c) {
+        c.setProject(project);
+        List<Resource> expected = new ArrayList<Resource>(resources);
+        Collections.sort(expected, c);
+
+        Sort s = new Sort();
+        s.setProject(project);
+        s.add(c);
+        Resources rc = new Resources(project);
+        rc.add(new ListCollection(resources));
+        s.add(rc);
+        assertEquals(describe(expected), describe(s));
+    }
+
+    private Reverse reverse(ResourceComparator nested) {
+        Reverse r = new Reverse();
+        r.setProject(project);
+        if (nested != null) {
+            nested.setProject(project);
+            r.add(nested);
+        }
+        return r;
+    }
+
+    private static String describe(Iterable<Resource> rs) {
+        StringBuilder sb = new StringBuilder();
+        for (Resource r : rs) {
+            sb.append(r.getName()).append(':')
+                .append(r.getLastModified()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    /** a collection that returns the given resources in order */
+    private static class ListCollection extends ArrayList<Resource>
+        implements org.apache.tools.ant.types.ResourceCollection {
+        private static final long serialVersionUID = 1L;
+
+        ListCollection(List<Resource> rs) {
+            super(rs);
+        }
+
+        public boolean isFilesystemOnly() {
+            return false;
+        }
+    }
+}
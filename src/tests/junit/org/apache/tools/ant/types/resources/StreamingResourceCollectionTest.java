@@ -0,0 +1,144 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types.resources;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.taskdefs.ResourceCount;
+import org.apache.tools.ant.types.Comparison;
+import org.apache.tools.ant.types.Resource;
+import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.resources.selectors.ResourceSelector;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingResourceCollectionTest {
+
+    private static final int SIZE = 1000;
+
+    private Project project;
+    private CountingCollection source;
+
+    /**
+     * Creates string resources on demand and counts how many have
+     * been consumed, size() fails.
+     */
+    private static class CountingCollection implements ResourceCollection {
+        private int consumed;
+
+        public Iterator<Resource> iterator() {
+            return new Iterator<Resource>() {
+                private int pos;
+                public boolean hasNext() {
+                    return pos < SIZE;
+                }
+                public Resource next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    consumed++;
+                    return new StringResource(String.valueOf(pos++));
+                }
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        public int size() {
+            throw new AssertionError("size must not be used");
+        }
+
+        public boolean isFilesystemOnly() {
+            return false;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        project = new Project();
+        source = new CountingCollection();
+    }
+
+    @Test
+    public void testResourcesWithoutCacheStreams() {
+        Resources r = new Resources(project);
+        r.add(source);
+        Iterator<Resource> i = r.iterator();
+        assertEquals("0", i.next().toString());
+        assertEquals(1, source.consumed);
+        assertFalse(r.isEmpty());
+    }
+
+    @Test
+    public void testFirstOnlyConsumesCount() {
+        First f = new First();
+        f.setProject(project);
+        f.setCount(10);
+        f.add(restrict(source, 2));
+        assertEquals(10, f.size());
+        // Restrict looks ahead for the next match
+        assertEquals(22, source.consumed);
+    }
+
+    @Test
+    public void testRestrictIsEmptyStopsAtFirstMatch() {
+        Restrict r = restrict(source, 7);
+        assertFalse(r.isEmpty());
+        assertEquals(7, source.consumed);
+        assertTrue(restrict(new Resources(project), 1).isEmpty());
+    }
+
+    @Test
+    public void testUnionIsEmptyDoesNotUnify() {
+        Union u = new Union(project);
+        u.add(new Resources(project));
+        u.add(source);
+        assertFalse(u.isEmpty());
+        assertEquals(0, source.consumed);
+    }
+
+    @Test
+    public void testResourceCountAgainstZero() {
+        ResourceCount c = new ResourceCount();
+        c.setProject(project);
+        c.add(restrict(source, 3));
+        c.setCount(0);
+        c.setWhen(Comparison.GREATER);
+        assertTrue(c.eval());
+        assertEquals(3, source.consumed);
+    }
+
+    private Restrict restrict(ResourceCollection rc, final int modulus) {
+        Restrict r = new Restrict();
+        r.setProject(project);
+        r.add(new ResourceSelector() {
+                public boolean isSelected(Resource res) {
+                    return (Integer.parseInt(res.getName()) + 1) % modulus == 0;
+                }
+            });
+        r.add(rc);
+        return r;
+    }
+}
@@ -271,6 +271,106 @@ public class ModifiedSelectorTest {
     }
 
 
+    /**
+     * With the stat prefilter the algorithm must only be invoked for files
+     * whose size or timestamp differ from the cached ones.
+     */
+    @Test
+    public void testStatPrefilter() throws Exception {
+        File cachefile = FILE_UTILS.createTempFile("tmp-cache-", ".properties", null, false, false);
+        File file = FILE_UTILS.createTempFile("modified-", ".txt", null, false, false);
+        try {
+            writeFile(file, "content");
+            // older than the file system's timestamp granularity
+            assertTrue(file.setLastModified(file.lastModified() - 10000));
+            File dir = file.getParentFile();
+            String name = file.getName();
+
+            ModifiedSelector s = new ModifiedSelector();
+            s.setClassLoader(getClass().getClassLoader());
+            s.setAlgorithmClass(CountingAlgorithm.class.getName());
+            s.addParam("cache.cachefile", cachefile.getAbsolutePath());
+            s.setStatPrefilter(true);
+            s.configure();
+            CountingAlgorithm algo = (CountingAlgorithm) s.getAlgorithm();
+
+            assertTrue("New file must be selected.", s.isSelected(dir, name, file));
+            assertEquals(1, algo.calls);
+
+            assertFalse("Unchanged file must not be selected.", s.isSelected(dir, name, file));
+            assertEquals("Unchanged file must not be read.", 1, algo.calls);
+
+            assertTrue(file.setLastModified(file.lastModified() - 10000));
+            assertFalse("Touched file must not be selected.", s.isSelected(dir, name, file));
+            assertEquals(2, algo.calls);
+            assertFalse(s.isSelected(dir, name, file));
+            assertEquals("Cache must store the new timestamp.", 2, algo.calls);
+
+            writeFile(file, "changed content");
+            assertTrue("Modified file must be selected.", s.isSelected(dir, name, file));
+            assertEquals(3, algo.calls);
+        } finally {
+            cachefile.delete();
+            file.delete();
+        }
+    }
+
+
+    /**
+     * A file modified again within the timestamp granularity without
+     * changing its size must be selected even though its size and
+     * timestamp match the ones seen when the cache entry was written.
+     */
+    @Test
+    public void testStatPrefilterDoesntTrustRacyStat() throws Exception {
+        File cachefile = FILE_UTILS.createTempFile("tmp-cache-", ".properties", null, false, false);
+        File file = FILE_UTILS.createTempFile("modified-", ".txt", null, false, false);
+        try {
+            writeFile(file, "content");
+            long lastModified = file.lastModified();
+            File dir = file.getParentFile();
+            String name = file.getName();
+
+            ModifiedSelector s = new ModifiedSelector();
+            s.setClassLoader(getClass().getClassLoader());
+            s.setAlgorithmClass(CountingAlgorithm.class.getName());
+            s.addParam("cache.cachefile", cachefile.getAbsolutePath());
+            s.setStatPrefilter(true);
+            s.configure();
+
+            assertTrue("New file must be selected.", s.isSelected(dir, name, file));
+
+            writeFile(file, "CONTENT");
+            assertTrue(file.setLastModified(lastModified));
+            assertTrue("Racily modified file must be selected.", s.isSelected(dir, name, file));
+        } finally {
+            cachefile.delete();
+            file.delete();
+        }
+    }
+
+
+    private void writeFile(File file, String content) throws java.io.IOException {
+        java.io.FileWriter out = new java.io.FileWriter(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+
+    /** Algorithm which counts how often a value has been computed. */
+    public static class CountingAlgorithm extends HashvalueAlgorithm {
+        int calls = 0;
+
+        public String getValue(File file) {
+            calls++;
+            return super.getValue(file);
+        }
+    }
+
+
     /**
      * Extracts the real used algorithm name from the ModifiedSelector using
      * its toString() method.
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.types.selectors;
+
+import java.io.File;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenizedPatternTreeTest {
+
+    private static final String[] PATTERNS = new String[] {
+        "**", "*", "**/**", "a", "A", "a/b", "a/**", "a/**/b", "**/b",
+        "**/b/**", "a/*/c", "a/?/c", "*/b/*", "a/**/**/c", "**/*.java",
+        "a/b*", "x/**/y/**/z", "a/b/c", ""
+    };
+
+    private static final String[] PATHS = new String[] {
+        "", "a", "A", "b", "a/b", "A/B", "a/b/c", "a/x/c", "a/xx/c",
+        "a/x/y/b", "b/a", "x/y/z", "x/q/y/r/z", "x/y", "Foo.java",
+        "a/Foo.java", "a/b/c/d", "a/bc"
+    };
+
+    @Test
+    public void testMatchesLikeTheIndividualPatterns() {
+        for (int i = 0; i < PATTERNS.length; i++) {
+            for (int j = i; j < PATTERNS.length; j++) {
+                TokenizedPattern[] pats = new TokenizedPattern[j - i + 1];
+                for (int k = i; k <= j; k++) {
+                    pats[k - i] = pattern(PATTERNS[k]);
+                }
+                assertMatchesLikePatterns(pats, true);
+                assertMatchesLikePatterns(pats, false);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyTree() {
+        TokenizedPatternTree tree =
+            new TokenizedPatternTree(new TokenizedPattern[0], true);
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.matchPath(TokenizedPath.EMPTY_PATH));
+        assertFalse(tree.matchStartOf(TokenizedPath.EMPTY_PATH));
+    }
+
+    @Test
+    public void testStarStarMatchesEmptyPathButStarDoesNot() {
+        assertTrue(tree(true, "**").matchPath(TokenizedPath.EMPTY_PATH));
+        assertFalse(tree(true, "*").matchPath(TokenizedPath.EMPTY_PATH));
+    }
+
+    @Test
+    public void testCaseInsensitiveLiterals() {
+        TokenizedPatternTree tree = tree(false, "src/Main/**");
+        assertTrue(tree.matchPath(path("SRC/main/Foo.java")));
+        assertFalse(tree(true, "src/Main/**")
+                    .matchPath(path("SRC/main/Foo.java")));
+    }
+
+    private static void assertMatchesLikePatterns(TokenizedPattern[] pats,
+                                                  boolean caseSensitive) {
+        TokenizedPatternTree tree = new TokenizedPatternTree(pats, caseSensitive);
+        for (int p = 0; p < PATHS.length; p++) {
+            TokenizedPath path = path(PATHS[p]);
+            boolean matches = false;
+            boolean matchesStart = false;
+            for (int k = 0; k < pats.length; k++) {
+                matches |= pats[k].matchPath(path, caseSensitive);
+                matchesStart |= pats[k].matchStartOf(path, caseSensitive);
+            }
+            String msg = describe(pats) + " against " + PATHS[p]
+                + " (case sensitive: " + caseSensitive + ")";
+            assertEquals(msg, matches, tree.matchPath(path));
+            assertEquals(msg, matchesStart, tree.matchStartOf(path));
+        }
+    }
+
+    private static TokenizedPatternTree tree(boolean caseSensitive,
+                                             String... patterns) {
+        TokenizedPattern[] pats = new TokenizedPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            pats[i] = pattern(patterns[i]);
+        }
+        return new TokenizedPatternTree(pats, caseSensitive);
+    }
+
+    private static TokenizedPattern pattern(String p) {
+        return new TokenizedPattern(p.replace('/', File.separatorChar));
+    }
+
+    private static TokenizedPath path(String p) {
+        return new TokenizedPath(p.replace('/', File.separatorChar));
+    }
+
+    private static String describe(TokenizedPattern[] pats) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pats.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(pats[i].getPattern());
+        }
+        return sb.toString();
+    }
+}
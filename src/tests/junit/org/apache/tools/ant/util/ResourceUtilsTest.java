@@ -18,12 +18,21 @@
 
 package org.apache.tools.ant.util;
 
+import java.io.File;
+
+import org.apache.tools.ant.Metrics;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Echo;
+import org.apache.tools.ant.types.FilterSet;
+import org.apache.tools.ant.types.FilterSetCollection;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceFactory;
+import org.apache.tools.ant.types.resources.FileResource;
+import org.apache.tools.ant.types.resources.StringResource;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
 
@@ -32,6 +41,9 @@ import static org.junit.Assert.assertEquals;
  */
 public class ResourceUtilsTest implements ResourceFactory, FileNameMapper {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private Echo taskINeedForLogging = new Echo();
 
     @Before
@@ -49,6 +61,26 @@ public class ResourceUtilsTest implements ResourceFactory, FileNameMapper {
         assertEquals(1, toNew.length);
     }
 
+    @Test
+    public void testCountsBytesWritten() throws Exception {
+        Project p = taskINeedForLogging.getProject();
+        FilterSet fs = new FilterSet();
+        fs.addFilter("X", "a longer value");
+        File dest = new File(folder.getRoot(), "dest.txt");
+        long before = Metrics.BYTES_COPIED.get();
+        ResourceUtils.copyResource(new StringResource(p, "@X@"),
+                                   new FileResource(dest),
+                                   new FilterSetCollection(fs), null,
+                                   true, false, false, null, null, p);
+        assertEquals(dest.length(), Metrics.BYTES_COPIED.get() - before);
+
+        File copy = new File(folder.getRoot(), "copy.txt");
+        before = Metrics.BYTES_COPIED.get();
+        ResourceUtils.copyResource(new FileResource(dest),
+                                   new FileResource(copy));
+        assertEquals(dest.length(), Metrics.BYTES_COPIED.get() - before);
+    }
+
     /* ============ ResourceFactory interface ====================== */
     public Resource getResource(String name) {
         return new Resource(name); // implies lastModified == 0
@@ -0,0 +1,232 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.tools.ant.util.optional;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class JavaxScriptRunnerTest {
+
+    private static final AtomicInteger ENGINES = new AtomicInteger();
+    private static final AtomicInteger COMPILATIONS = new AtomicInteger();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Project project;
+    private URLClassLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        project = new Project();
+        ENGINES.set(0);
+        COMPILATIONS.set(0);
+        // make the counting engine visible to ScriptEngineManager
+        File services = new File(folder.getRoot(), "META-INF/services");
+        services.mkdirs();
+        OutputStream out = new FileOutputStream(
+            new File(services, ScriptEngineFactory.class.getName()));
+        try {
+            out.write(CountingEngineFactory.class.getName().getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        loader = new URLClassLoader(new URL[] {folder.getRoot().toURI().toURL()},
+                                    getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        loader.close();
+    }
+
+    @Test
+    public void testEngineAndCompiledScriptAreShared() {
+        JavaxScriptRunner r1 = runner("get foo");
+        r1.addBean("foo", "bar");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("bar", r1.evaluateScript("test"));
+        }
+        JavaxScriptRunner r2 = runner("get foo");
+        r2.addBean("foo", "baz");
+        assertEquals("baz", r2.evaluateScript("test"));
+        assertEquals(1, ENGINES.get());
+        assertEquals(1, COMPILATIONS.get());
+    }
+
+    @Test
+    public void testBindingsAreIsolated() {
+        runner("set foo").executeScript("test");
+        assertNull(runner("get foo").evaluateScript("test"));
+        assertEquals(1, ENGINES.get());
+        assertEquals(2, COMPILATIONS.get());
+    }
+
+    @Test
+    public void testCacheCanBeDisabled() {
+        project.setProperty(MagicNames.SCRIPT_CACHE, "false");
+        JavaxScriptRunner r = runner("get foo");
+        r.addBean("foo", "bar");
+        assertEquals("bar", r.evaluateScript("test"));
+        assertEquals("bar", r.evaluateScript("test"));
+        assertEquals(2, ENGINES.get());
+        assertEquals(0, COMPILATIONS.get());
+    }
+
+    @Test
+    public void testBuildExceptionIsUnwrapped() {
+        try {
+            runner("fail").executeScript("test");
+            fail("expected a BuildException");
+        } catch (BuildException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+    }
+
+    private JavaxScriptRunner runner(String script) {
+        JavaxScriptRunner r = new JavaxScriptRunner();
+        r.setProject(project);
+        r.setLanguage("counting");
+        r.setScriptClassLoader(loader);
+        r.addText(script);
+        return r;
+    }
+
+    /**
+     * Understands "get NAME", "set NAME" and "fail".
+     */
+    public static class CountingEngineFactory implements ScriptEngineFactory {
+        public String getEngineName() {
+            return "counting";
+        }
+        public String getEngineVersion() {
+            return "1";
+        }
+        public List<String> getExtensions() {
+            return Collections.emptyList();
+        }
+        public List<String> getMimeTypes() {
+            return Collections.emptyList();
+        }
+        public List<String> getNames() {
+            return Collections.singletonList("counting");
+        }
+        public String getLanguageName() {
+            return "counting";
+        }
+        public String getLanguageVersion() {
+            return "1";
+        }
+        public Object getParameter(String key) {
+            return ScriptEngine.NAME.equals(key) ? "counting" : null;
+        }
+        public String getMethodCallSyntax(String obj, String m, String... args) {
+            return null;
+        }
+        public String getOutputStatement(String toDisplay) {
+            return null;
+        }
+        public String getProgram(String... statements) {
+            return null;
+        }
+        public ScriptEngine getScriptEngine() {
+            ENGINES.incrementAndGet();
+            return new CountingEngine(this);
+        }
+    }
+
+    private static class CountingEngine extends AbstractScriptEngine
+        implements Compilable {
+        private final ScriptEngineFactory factory;
+
+        CountingEngine(ScriptEngineFactory factory) {
+            this.factory = factory;
+        }
+
+        public Object eval(String script, ScriptContext context)
+            throws ScriptException {
+            String[] parts = script.trim().split(" ");
+            if ("set".equals(parts[0])) {
+                context.setAttribute(parts[1], "x", ScriptContext.ENGINE_SCOPE);
+                return null;
+            }
+            if ("get".equals(parts[0])) {
+                return context.getAttribute(parts[1]);
+            }
+            throw new ScriptException(new BuildException("failed"));
+        }
+
+        public Object eval(Reader reader, ScriptContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        public ScriptEngineFactory getFactory() {
+            return factory;
+        }
+
+        public CompiledScript compile(final String script) {
+            COMPILATIONS.incrementAndGet();
+            return new CompiledScript() {
+                public Object eval(ScriptContext context) throws ScriptException {
+                    return CountingEngine.this.eval(script, context);
+                }
+                public ScriptEngine getEngine() {
+                    return CountingEngine.this;
+                }
+            };
+        }
+
+        public CompiledScript compile(Reader script) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -36,6 +36,23 @@ public class Jdk14RegexpMatcherTest extends RegexpMatcherTest {
         super(name);
     }
 
+    public void testCompiledPatternsAreShared() {
+        Jdk14RegexpMatcher m1 = new Jdk14RegexpMatcher();
+        Jdk14RegexpMatcher m2 = new Jdk14RegexpRegexp();
+        m1.setPattern("shared-(\\d+)");
+        m2.setPattern("shared-(\\d+)");
+        assertSame(m1.getCompiledPattern(RegexpMatcher.MATCH_DEFAULT),
+                   m2.getCompiledPattern(RegexpMatcher.MATCH_DEFAULT));
+        assertNotSame(m1.getCompiledPattern(RegexpMatcher.MATCH_DEFAULT),
+                      m1.getCompiledPattern(RegexpMatcher.MATCH_CASE_INSENSITIVE));
+        assertTrue(m1.matches("SHARED-1", RegexpMatcher.MATCH_CASE_INSENSITIVE));
+        assertFalse(m1.matches("SHARED-1"));
+
+        m1.setPattern("other");
+        assertTrue(m1.matches("other"));
+        assertFalse(m1.matches("shared-1"));
+    }
+
     public void testParagraphCharacter() throws IOException {
         try {
             super.testParagraphCharacter();